@@ -0,0 +1,105 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Приложение Spring Boot из собранного jar в отдельном процессе. Готовность и метрики берутся из actuator,
+// дополнительные параметры JVM передаются строкой через jvmArgs
+final class ApplicationProcess implements AutoCloseable {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String name;
+    private final Process process;
+    private final int port;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private ApplicationProcess(String name, Process process, int port) {
+        this.name = name;
+        this.process = process;
+        this.port = port;
+    }
+
+    static ApplicationProcess start(String name, Path jar, String jvmArgs, List<String> args) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (!jvmArgs.isBlank()) {
+            command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        }
+        command.addAll(List.of("-jar", jar.toString(),
+                "--server.port=" + port,
+                "--management.endpoints.web.exposure.include=health,metrics",
+                "--logging.level.root=WARN",
+                "--logging.level.ru.practicum.shareit=WARN"));
+        command.addAll(args);
+
+        File log = Files.createTempFile(name + "-load-test", ".log").toFile();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        ApplicationProcess application = new ApplicationProcess(name, process, port);
+        application.awaitStarted(log);
+        return application;
+    }
+
+    private void awaitStarted(File log) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(90);
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " завершился при запуске, лог: " + log);
+            }
+            try {
+                HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(uri("/actuator/health"))
+                        .build(), HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Приложение еще не слушает порт
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException(name + " не запустился за 90 секунд, лог: " + log);
+    }
+
+    URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    double metric(String metricName, String tag) throws Exception {
+        String path = "/actuator/metrics/" + metricName + (tag != null ? "?tag=" + tag : "");
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(uri(path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        JsonNode measurements = MAPPER.readTree(response.body()).path("measurements");
+        return measurements.path(0).path("value").asDouble();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ru.practicum.shareit.benchmark;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.model.ItemComment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemWithBooking;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Сущности для бенчмарков без обращения к БД
+final class BenchmarkData {
+    static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    private BenchmarkData() {
+    }
+
+    static User user(long id) {
+        return User.builder()
+                .id(id)
+                .name("user" + id)
+                .email("user" + id + "@test.ru")
+                .build();
+    }
+
+    static Item item(long id, User owner) {
+        return Item.builder()
+                .id(id)
+                .name("item" + id)
+                .description("description of item " + id)
+                .available(true)
+                .owner(owner)
+                .build();
+    }
+
+    static Booking booking(long id, Item item, User booker) {
+        return Booking.builder()
+                .id(id)
+                .start(NOW.plusHours(id))
+                .end(NOW.plusHours(id + 1))
+                .item(item)
+                .booker(booker)
+                .status(BookingStatus.APPROVED)
+                .build();
+    }
+
+    static Comment comment(long id, Item item, User author) {
+        return Comment.builder()
+                .id(id)
+                .text("comment " + id)
+                .item(item)
+                .author(author)
+                .created(NOW.minusHours(id))
+                .build();
+    }
+
+    static ItemWithBooking itemWithBooking(Item item, Booking lastBooking, Booking nextBooking) {
+        return ItemWithBooking.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .owner(item.getOwner())
+                .lastBooking(lastBooking)
+                .lastBookingBookerId(lastBooking.getBooker().getId())
+                .nextBooking(nextBooking)
+                .nextBookingBookerId(nextBooking.getBooker().getId())
+                .build();
+    }
+
+    static List<Booking> bookings(int count) {
+        User owner = user(1);
+        User booker = user(2);
+        List<Booking> bookings = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            bookings.add(booking(id, item(id, owner), booker));
+        }
+        return bookings;
+    }
+
+    static List<Comment> comments(List<Item> items, int commentsPerItem) {
+        User author = user(2);
+        List<Comment> comments = new ArrayList<>(items.size() * commentsPerItem);
+        long id = 1;
+        for (int i = 0; i < commentsPerItem; i++) {
+            for (Item item : items) {
+                comments.add(comment(id++, item, author));
+            }
+        }
+        return comments;
+    }
+
+    // Проекции отзывов в том виде, в каком их отдает репозиторий: новые отзывы раньше старых
+    static List<ItemComment> itemComments(List<Comment> comments) {
+        return comments.stream()
+                .sorted(Comparator.comparing(Comment::getCreated).reversed())
+                .map(BenchmarkItemComment::new)
+                .collect(Collectors.toList());
+    }
+
+    // Обычный класс вместо прокси, чтобы геттеры проекции не искажали замер
+    private static final class BenchmarkItemComment implements ItemComment {
+        private final Comment comment;
+
+        private BenchmarkItemComment(Comment comment) {
+            this.comment = comment;
+        }
+
+        @Override
+        public Long getItemId() {
+            return comment.getItemOfCommentId();
+        }
+
+        @Override
+        public Long getId() {
+            return comment.getId();
+        }
+
+        @Override
+        public String getText() {
+            return comment.getText();
+        }
+
+        @Override
+        public String getAuthorName() {
+            return comment.getAuthor().getName();
+        }
+
+        @Override
+        public LocalDateTime getCreated() {
+            return comment.getCreated();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.SimpleBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingMapperBenchmark {
+    @Param({"1", "10", "100"})
+    int size;
+
+    private List<Booking> bookings;
+
+    @Setup
+    public void setUp() {
+        bookings = BenchmarkData.bookings(size);
+    }
+
+    @Benchmark
+    public Collection<BookingDto> mapToBookingDto() {
+        return BookingMapper.mapToBookingDto(bookings);
+    }
+
+    @Benchmark
+    public SimpleBookingDto mapToSimpleBookingDto() {
+        return BookingMapper.mapToSimpleBookingDto(bookings.get(0), bookings.get(0).getBooker().getId());
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Списки бронирований автора и владельца через сервис и H2. Половина бронирований в прошлом, половина в будущем.
+// Глубокая страница находится в середине выборки: смещением и курсором. Выделение памяти на операцию: -prof gc
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingServiceBenchmark {
+    private static final int PAGE_SIZE = 10;
+    private static final int ITEM_COUNT = 100;
+
+    @Param({"1000", "100000"})
+    int bookingCount;
+
+    @Param({"ALL", "PAST", "FUTURE", "WAITING"})
+    BookingState state;
+
+    private ShareItContext context;
+    private BookingService bookingService;
+    private long ownerId;
+    private long bookerId;
+    private int deepFrom;
+    private String deepCursor;
+
+    @Setup
+    public void setUp() {
+        context = ShareItContext.start("bookings");
+        bookingService = context.getBean(BookingService.class);
+
+        ownerId = context.insertUser("owner");
+        bookerId = context.insertUser("booker");
+        context.insertItems(ownerId, ITEM_COUNT, new ShareItContext.ItemTextGenerator() {
+            @Override
+            public String name(int index) {
+                return "item" + index;
+            }
+
+            @Override
+            public String description(int index) {
+                return "description of item " + index;
+            }
+        });
+        context.insertBookings(bookerId, context.findItemIds(ownerId), bookingCount,
+                LocalDateTime.now().minusHours(bookingCount / 2), new String[]{"APPROVED", "WAITING", "REJECTED"});
+
+        // Число строк в выборке состояния оценивается по первой странице с максимальным размером
+        int stateCount = bookingService.getAllBookingsByBookerId(bookerId, state, 0, bookingCount).size();
+        deepFrom = Math.max(stateCount / 2 / PAGE_SIZE * PAGE_SIZE, PAGE_SIZE);
+        List<BookingDto> previousPage = new ArrayList<>(bookingService.getAllBookingsByBookerId(bookerId, state,
+                deepFrom - PAGE_SIZE, PAGE_SIZE));
+        BookingDto last = previousPage.get(previousPage.size() - 1);
+        deepCursor = last.getStart() + "," + last.getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Collection<BookingDto> bookerFirstPage() {
+        return bookingService.getAllBookingsByBookerId(bookerId, state, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Collection<BookingDto> bookerDeepPageByOffset() {
+        return bookingService.getAllBookingsByBookerId(bookerId, state, deepFrom, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Collection<BookingDto> bookerDeepPageByCursor() {
+        return bookingService.getAllBookingsByBookerId(bookerId, state, deepCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Collection<BookingDto> ownerFirstPage() {
+        return bookingService.getAllBookingsByItemOwnerId(ownerId, state, 0, PAGE_SIZE);
+    }
+}
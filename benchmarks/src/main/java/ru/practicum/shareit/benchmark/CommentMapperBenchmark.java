@@ -0,0 +1,35 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.dto.CommentMapper;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommentMapperBenchmark {
+    @Param({"1", "10", "100"})
+    int size;
+
+    private List<Comment> comments;
+
+    @Setup
+    public void setUp() {
+        Item item = BenchmarkData.item(1, BenchmarkData.user(1));
+        comments = BenchmarkData.comments(List.of(item), size);
+    }
+
+    @Benchmark
+    public Collection<CommentDto> mapToCommentDto() {
+        return CommentMapper.mapToCommentDto(comments);
+    }
+}
@@ -0,0 +1,110 @@
+package ru.practicum.shareit.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Нагрузочный тест шлюза. Заглушка сервера отвечает на GET /users/{id} с задержкой, шлюз запускается отдельным
+// процессом, и на него одновременно отправляется заданное число запросов. Печатает задержки, пропускную способность,
+// пик потоков и кучи шлюза по метрикам actuator.
+// Шлюз и сервер не могут жить в одном classpath, поэтому шлюз берется из собранного jar (-Dgateway.jar=...),
+// дополнительные параметры JVM шлюза передаются через -Dgateway.jvm-args="...".
+// Запуск: java -cp benchmarks/target/benchmarks.jar ru.practicum.shareit.benchmark.GatewayLoadTest
+//         [rest-template|web-client] [число запросов] [задержка сервера, мс] [параметры шлюза --name=value ...]
+// Режим виртуальных потоков (JDK 21): -Dgateway.jvm-args="-Djdk.tracePinnedThreads=short" rest-template 5000 100
+//         --spring.profiles.active=virtual-threads
+public final class GatewayLoadTest {
+    private static final String USER_JSON = "{\"id\":1,\"name\":\"user\",\"email\":\"user@test.ru\"}";
+
+    private GatewayLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String client = args.length > 0 ? args[0] : "web-client";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        long serverDelayMs = args.length > 2 ? Long.parseLong(args[2]) : 100;
+        List<String> gatewayArgs = args.length > 3 ? Arrays.asList(args).subList(3, args.length) : List.of();
+        Path gatewayJar = Path.of(System.getProperty("gateway.jar",
+                "gateway/target/shareit-gateway-0.0.1-SNAPSHOT.jar"));
+
+        try (StubServer server = StubServer.start(serverDelayMs);
+             ApplicationProcess gateway = startGateway(gatewayJar, server.url(), client, concurrency, gatewayArgs)) {
+            HttpClient httpClient = LoadRound.httpClient();
+            LoadRound.run(httpClient, gateway, "/users/1", Math.min(concurrency, 500));
+            LoadRound round = LoadRound.run(httpClient, gateway, "/users/1", concurrency);
+
+            System.out.printf("client=%s, concurrency=%d, server delay=%d ms, gateway args=%s%n", client, concurrency,
+                    serverDelayMs, gatewayArgs);
+            round.print(gateway);
+        }
+    }
+
+    // Пул соединений с сервером и очередь Tomcat рассчитаны на всю нагрузку, кэш ответов выключен
+    private static ApplicationProcess startGateway(Path jar, String serverUrl, String client, int concurrency,
+                                                   List<String> gatewayArgs) throws Exception {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.tomcat.max-connections=" + (concurrency + 1000),
+                "--server.tomcat.accept-count=" + concurrency,
+                "--shareit-server.url=" + serverUrl,
+                "--shareit-server.client=" + client,
+                "--shareit-server.http.max-connections=" + concurrency,
+                "--shareit-server.http.max-connections-per-route=" + concurrency,
+                "--shareit-server.http.pool-acquire-timeout=60s",
+                "--shareit-server.http.read-timeout=60s",
+                "--shareit-gateway.response-cache.ttl.user=0s",
+                "--logging.level.org.springframework.web.client.RestTemplate=WARN"));
+        args.addAll(gatewayArgs);
+        return ApplicationProcess.start("gateway", jar, System.getProperty("gateway.jvm-args", ""), args);
+    }
+
+    // Ответы отправляются по таймеру, поэтому заглушка держит любое число ожидающих запросов на паре потоков,
+    // которые и принимают запросы, и отвечают на них
+    private static final class StubServer implements AutoCloseable {
+        private final HttpServer httpServer;
+        private final ScheduledExecutorService scheduler;
+
+        private StubServer(HttpServer httpServer, ScheduledExecutorService scheduler) {
+            this.httpServer = httpServer;
+            this.scheduler = scheduler;
+        }
+
+        private static StubServer start(long delayMs) throws IOException {
+            byte[] body = USER_JSON.getBytes(StandardCharsets.UTF_8);
+            ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+            HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 10_000);
+            httpServer.createContext("/users/", exchange -> scheduler.schedule(() -> {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    exchange.getResponseHeaders().set("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, body.length);
+                    out.write(body);
+                } catch (IOException e) {
+                    exchange.close();
+                }
+            }, delayMs, TimeUnit.MILLISECONDS));
+            httpServer.setExecutor(scheduler);
+            httpServer.start();
+            return new StubServer(httpServer, scheduler);
+        }
+
+        private String url() {
+            return "http://localhost:" + httpServer.getAddress().getPort();
+        }
+
+        @Override
+        public void close() {
+            httpServer.stop(0);
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// Путь ответа сервера через шлюз: разбор JSON в объекты и повторная сериализация, как при чтении ответа
+// RestTemplate в Object, против передачи байтов как есть. Выделение памяти на операцию: -prof gc
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GatewayPassthroughBenchmark {
+    @Param({"10", "100"})
+    int pageSize;
+
+    private final MappingJackson2HttpMessageConverter jsonConverter = new MappingJackson2HttpMessageConverter(
+            new ObjectMapper()
+                    .registerModule(new JavaTimeModule())
+                    .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+    private final ByteArrayHttpMessageConverter byteArrayConverter = new ByteArrayHttpMessageConverter();
+
+    private byte[] serverResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jsonConverter.write(BookingMapper.mapToBookingDto(BenchmarkData.bookings(pageSize)),
+                MediaType.APPLICATION_JSON, new OutputMessage(out));
+        serverResponse = out.toByteArray();
+    }
+
+    @Benchmark
+    public int objectRoundTrip() throws IOException {
+        Object body = jsonConverter.read(Object.class, new InputMessage(serverResponse));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jsonConverter.write(body, MediaType.APPLICATION_JSON, new OutputMessage(out));
+        return out.size();
+    }
+
+    @Benchmark
+    public int bytePassthrough() throws IOException {
+        byte[] body = byteArrayConverter.read(byte[].class, new InputMessage(serverResponse));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byteArrayConverter.write(body, MediaType.APPLICATION_JSON, new OutputMessage(out));
+        return out.size();
+    }
+
+    private static final class InputMessage implements HttpInputMessage {
+        private final byte[] body;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private InputMessage(byte[] body) {
+            this.body = body;
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setContentLength(body.length);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private static final class OutputMessage implements HttpOutputMessage {
+        private final OutputStream body;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private OutputMessage(OutputStream body) {
+            this.body = body;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
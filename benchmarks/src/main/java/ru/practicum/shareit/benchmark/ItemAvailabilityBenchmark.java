@@ -0,0 +1,74 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.model.AvailabilityInterval;
+import ru.practicum.shareit.booking.model.BookingInterval;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Календарь занятости одной вещи по индексу бронирований. Бронирования идут по часу с часовыми промежутками,
+// каждое третье ожидает подтверждения, часть ожидающих пересекается с подтвержденными. Окно месяца в середине
+// истории и окно на всю историю
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemAvailabilityBenchmark {
+    private static final long ITEM_ID = 1L;
+
+    @Param({"10000", "100000"})
+    int bookingCount;
+
+    private BookingIntervalIndex index;
+    private LocalDateTime monthFrom;
+    private LocalDateTime monthTo;
+    private LocalDateTime historyFrom;
+    private LocalDateTime historyTo;
+
+    @Setup
+    public void setUp() {
+        historyFrom = LocalDateTime.of(2030, 1, 1, 0, 0);
+        historyTo = historyFrom.plusHours(2L * bookingCount);
+
+        List<BookingInterval> approved = new ArrayList<>();
+        List<BookingInterval> waiting = new ArrayList<>();
+        for (int i = 0; i < bookingCount; i++) {
+            LocalDateTime start = historyFrom.plusHours(2L * i);
+            if (i % 3 == 0) {
+                // Ожидающее бронирование на полчаса заходит на промежуток после себя
+                waiting.add(new BookingInterval((long) i, start.plusMinutes(30), start.plusMinutes(90)));
+            } else {
+                approved.add(new BookingInterval((long) i, start, start.plusHours(1)));
+            }
+        }
+
+        BookingRepository bookingRepository = Stubs.stub(BookingRepository.class, Map.of(
+                "findIntervalsByItemIdAndStatusAndEndAfter",
+                args -> args[1] == BookingStatus.APPROVED ? approved : waiting));
+        index = new BookingIntervalIndex(bookingRepository);
+
+        monthFrom = historyFrom.plusHours(bookingCount);
+        monthTo = monthFrom.plusDays(30);
+        // Загрузка интервалов вещи не входит в измерение
+        index.getAvailability(ITEM_ID, monthFrom, monthTo);
+    }
+
+    @Benchmark
+    public List<AvailabilityInterval> month() {
+        return index.getAvailability(ITEM_ID, monthFrom, monthTo);
+    }
+
+    @Benchmark
+    public List<AvailabilityInterval> wholeHistory() {
+        return index.getAvailability(ITEM_ID, historyFrom, historyTo);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.dto.CommentMapper;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemWithBookingDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemWithBooking;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemMapperBenchmark {
+    @Param({"0", "10"})
+    int commentCount;
+
+    private ItemWithBooking item;
+    private Collection<CommentDto> comments;
+
+    @Setup
+    public void setUp() {
+        User owner = BenchmarkData.user(1);
+        User booker = BenchmarkData.user(2);
+        Item item = BenchmarkData.item(1, owner);
+        this.item = BenchmarkData.itemWithBooking(item, BenchmarkData.booking(1, item, booker),
+                BenchmarkData.booking(2, item, booker));
+        comments = CommentMapper.mapToCommentDto(BenchmarkData.comments(List.of(item), commentCount));
+    }
+
+    @Benchmark
+    public ItemWithBookingDto mapToItemWithBookingDto() {
+        return ItemMapper.mapToItemWithBookingDto(item, comments);
+    }
+}
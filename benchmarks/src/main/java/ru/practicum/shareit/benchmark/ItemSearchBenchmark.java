@@ -0,0 +1,75 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.InMemoryItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.LikeItemSearchEngine;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Поиск вещей запросом like по H2 и по триграммному индексу в памяти. Частое слово находится на первых строках
+// таблицы, редкое и отсутствующее заставляют like просмотреть всю таблицу
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ItemSearchBenchmark {
+    private static final String[] WORDS = {"drill", "saw", "hammer", "ladder", "tent", "bicycle", "kayak",
+            "projector", "camera", "tripod", "mixer", "vacuum", "heater", "lamp", "guitar", "scooter"};
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 20);
+
+    @Param({"1000000"})
+    int itemCount;
+
+    @Param({"drill", "bicycle 4242", "submarine"})
+    String text;
+
+    private ShareItContext context;
+    private ItemSearchEngine likeEngine;
+    private ItemSearchEngine inMemoryEngine;
+
+    @Setup
+    public void setUp() {
+        context = ShareItContext.start("search");
+        long ownerId = context.insertUser("owner");
+        context.insertItems(ownerId, itemCount, new ShareItContext.ItemTextGenerator() {
+            @Override
+            public String name(int index) {
+                return WORDS[index % WORDS.length] + " " + index;
+            }
+
+            @Override
+            public String description(int index) {
+                return "good " + WORDS[(index * 7 + 3) % WORDS.length] + " for rent, almost new "
+                        + WORDS[(index * 13 + 5) % WORDS.length];
+            }
+        });
+
+        ItemRepository itemRepository = context.getBean(ItemRepository.class);
+        likeEngine = new LikeItemSearchEngine(itemRepository);
+        inMemoryEngine = new InMemoryItemSearchEngine(itemRepository);
+        // Загрузка индекса не входит в измерения
+        inMemoryEngine.search(text, FIRST_PAGE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Item> like() {
+        return likeEngine.search(text, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public List<Item> inMemoryIndex() {
+        return inMemoryEngine.search(text, FIRST_PAGE);
+    }
+}
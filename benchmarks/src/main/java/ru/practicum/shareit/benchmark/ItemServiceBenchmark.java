@@ -0,0 +1,77 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.BookingStateCounters;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.comment.model.ItemComment;
+import ru.practicum.shareit.comment.storage.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemWithBookingDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemWithBooking;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemWithBookingRepository;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserLookup;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Сервис вещей на заглушках репозиториев: измеряется только сборка ответа, в том числе группировка отзывов по вещам
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemServiceBenchmark {
+    @Param({"10", "100"})
+    int itemCount;
+
+    @Param({"0", "5"})
+    int commentsPerItem;
+
+    private ItemService itemService;
+
+    @Setup
+    public void setUp() {
+        User owner = BenchmarkData.user(1);
+        User booker = BenchmarkData.user(2);
+        List<Item> items = new ArrayList<>(itemCount);
+        List<ItemWithBooking> itemsWithBooking = new ArrayList<>(itemCount);
+        for (long id = 1; id <= itemCount; id++) {
+            Item item = BenchmarkData.item(id, owner);
+            items.add(item);
+            itemsWithBooking.add(BenchmarkData.itemWithBooking(item, BenchmarkData.booking(2 * id, item, booker),
+                    BenchmarkData.booking(2 * id + 1, item, booker)));
+        }
+        List<ItemComment> comments = BenchmarkData.itemComments(BenchmarkData.comments(items, commentsPerItem));
+
+        UserRepository userRepository = Stubs.stub(UserRepository.class, Map.of(
+                "existsById", args -> true));
+        ItemWithBookingRepository itemWithBookingRepository = Stubs.stub(ItemWithBookingRepository.class, Map.of(
+                "findItemWithProjectedBookingByOwnerId", args -> itemsWithBooking));
+        CommentRepository commentRepository = Stubs.stub(CommentRepository.class, Map.of(
+                "findItemCommentsByItemIdIn", args -> comments));
+        BookingRepository bookingRepository = Stubs.stub(BookingRepository.class);
+
+        itemService = new ItemServiceImpl(Stubs.stub(ItemRepository.class), new UserLookup(userRepository),
+                bookingRepository, commentRepository, itemWithBookingRepository,
+                Stubs.stub(ItemRequestRepository.class), new BookingIntervalIndex(bookingRepository),
+                new BookingStateCounters(bookingRepository),
+                Stubs.stub(ItemSearchEngine.class));
+    }
+
+    @Benchmark
+    public Collection<ItemWithBookingDto> getAllItemsByOwnerId() {
+        return itemService.getAllItemsByOwnerId(1L, 0, itemCount);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.benchmark;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Раунд нагрузки: все запросы отправляются разом, каждый по своему соединению. Пока идет раунд,
+// куча приложения опрашивается через actuator, наибольшее значение и есть пиковое потребление
+final class LoadRound {
+    private final long[] latencies;
+    private final int errors;
+    private final long durationNanos;
+    private final long heapUsedMax;
+
+    private LoadRound(long[] latencies, int errors, long durationNanos, long heapUsedMax) {
+        this.latencies = latencies.clone();
+        Arrays.sort(this.latencies);
+        this.errors = errors;
+        this.durationNanos = durationNanos;
+        this.heapUsedMax = heapUsedMax;
+    }
+
+    static HttpClient httpClient() {
+        return HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    static LoadRound run(HttpClient httpClient, ApplicationProcess application, String path, int requests) {
+        HttpRequest request = HttpRequest.newBuilder(application.uri(path))
+                .timeout(Duration.ofMinutes(2))
+                .build();
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        List<CompletableFuture<?>> responses = new ArrayList<>(requests);
+        AtomicLong heapUsedMax = new AtomicLong();
+        ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor();
+        heapSampler.scheduleWithFixedDelay(() -> {
+            try {
+                long used = (long) application.metric("jvm.memory.used", "area:heap");
+                heapUsedMax.accumulateAndGet(used, Math::max);
+            } catch (Exception e) {
+                // Пропущенный замер не влияет на результат
+            }
+        }, 0, 100, TimeUnit.MILLISECONDS);
+
+        long roundStart = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            long start = System.nanoTime();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .handle((response, e) -> {
+                        latencies[index] = System.nanoTime() - start;
+                        if (e != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).join();
+        long duration = System.nanoTime() - roundStart;
+        heapSampler.shutdownNow();
+        return new LoadRound(latencies, errors.get(), duration, heapUsedMax.get());
+    }
+
+    void print(ApplicationProcess application) throws Exception {
+        System.out.printf("errors=%d, throughput=%.0f req/s%n", errors, latencies.length * 1e9 / durationNanos);
+        System.out.printf("latency p50=%d ms, p99=%d ms, max=%d ms%n", percentile(50), percentile(99),
+                percentile(100));
+        System.out.printf("threads peak=%.0f, heap used max=%.1f MiB%n",
+                application.metric("jvm.threads.peak", null), heapUsedMax / 1024.0 / 1024.0);
+    }
+
+    private long percentile(int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(latencies[Math.max(index, 0)]);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.benchmark;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Нагрузочный тест сервера на встроенной H2. Сервер запускается отдельным процессом из исполняемого jar
+// (-Dserver.jar=...), создается пользователь, и на GET /users/{id} одновременно отправляется заданное число
+// запросов. Кэш выключен, поэтому каждый запрос идет в БД через пул соединений.
+// Запуск: java -cp benchmarks/target/benchmarks.jar ru.practicum.shareit.benchmark.ServerLoadTest
+//         [число запросов] [параметры сервера --name=value ...]
+// Режим виртуальных потоков (JDK 21): ServerLoadTest 5000 --spring.profiles.active=test,virtual-threads
+public final class ServerLoadTest {
+    private ServerLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        List<String> serverArgs = new ArrayList<>(List.of(
+                "--spring.profiles.active=test",
+                "--spring.cache.type=none",
+                "--server.tomcat.max-connections=" + (concurrency + 1000),
+                "--server.tomcat.accept-count=" + concurrency,
+                "--logging.level.org.springframework.transaction.interceptor=WARN",
+                "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN"));
+        List<String> extraArgs = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : List.of();
+        serverArgs.addAll(extraArgs);
+        Path serverJar = Path.of(System.getProperty("server.jar",
+                "server/target/shareit-server-0.0.1-SNAPSHOT-exec.jar"));
+
+        try (ApplicationProcess server = ApplicationProcess.start("server", serverJar,
+                System.getProperty("server.jvm-args", ""), serverArgs)) {
+            HttpClient httpClient = LoadRound.httpClient();
+            HttpResponse<Void> created = httpClient.send(HttpRequest.newBuilder(server.uri("/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"user\",\"email\":\"user@test.ru\"}"))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            if (created.statusCode() != 200) {
+                throw new IllegalStateException("Не удалось создать пользователя: " + created.statusCode());
+            }
+
+            LoadRound.run(httpClient, server, "/users/1", Math.min(concurrency, 500));
+            LoadRound round = LoadRound.run(httpClient, server, "/users/1", concurrency);
+
+            System.out.printf("concurrency=%d, server args=%s%n", concurrency, extraArgs);
+            round.print(server);
+        }
+    }
+}
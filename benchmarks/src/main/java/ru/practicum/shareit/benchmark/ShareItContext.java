@@ -0,0 +1,90 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Контекст сервера на встроенной H2 без веб-слоя и быстрое заполнение таблиц пакетными вставками
+final class ShareItContext implements AutoCloseable {
+    private static final int BATCH_SIZE = 10_000;
+
+    private final ConfigurableApplicationContext context;
+    private final JdbcTemplate jdbcTemplate;
+
+    private ShareItContext(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    static ShareItContext start(String databaseName) {
+        return new ShareItContext(new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                // Аргументы командной строки перекрывают application.properties сервера
+                .run("--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                        "--shareit.search.engine=like",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN"));
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    long insertUser(String name) {
+        jdbcTemplate.update("insert into users (name, email) values (?, ?)", name, name + "@test.ru");
+        return jdbcTemplate.queryForObject("select id from users where name = ?", Long.class, name);
+    }
+
+    // Вставляет вещи владельца, названия и описания задает генератор по порядковому номеру
+    void insertItems(long ownerId, int count, ItemTextGenerator generator) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            batch.add(new Object[]{generator.name(i), generator.description(i), true, ownerId});
+            if (batch.size() == BATCH_SIZE || i == count - 1) {
+                jdbcTemplate.batchUpdate("insert into items (name, description, is_available, owner_id) " +
+                        "values (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    List<Long> findItemIds(long ownerId) {
+        return jdbcTemplate.queryForList("select id from items where owner_id = ? order by id", Long.class, ownerId);
+    }
+
+    // Вставляет бронирования по кругу на вещи из списка, каждое следующее начинается на час позже предыдущего
+    void insertBookings(long bookerId, List<Long> itemIds, int count, LocalDateTime firstStart, String[] statuses) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = firstStart.plusHours(i);
+            batch.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusMinutes(30)),
+                    itemIds.get(i % itemIds.size()), bookerId, statuses[i % statuses.length]});
+            if (batch.size() == BATCH_SIZE || i == count - 1) {
+                jdbcTemplate.batchUpdate("insert into bookings (start_date, end_date, item_id, booker_id, status) " +
+                        "values (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    interface ItemTextGenerator {
+        String name(int index);
+
+        String description(int index);
+    }
+}
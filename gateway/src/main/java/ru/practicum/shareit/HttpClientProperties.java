@@ -0,0 +1,23 @@
+package ru.practicum.shareit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.http")
+public class HttpClientProperties {
+    private int maxConnections = 200;
+    // Все клиенты ходят на один сервер, поэтому лимит на маршрут обычно равен общему
+    private int maxConnectionsPerRoute = 200;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(30);
+    // Сколько ждать свободного соединения из пула
+    private Duration poolAcquireTimeout = Duration.ofSeconds(1);
+    // Сколько держать соединение открытым, если сервер не прислал Keep-Alive
+    private Duration keepAlive = Duration.ofSeconds(30);
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+}
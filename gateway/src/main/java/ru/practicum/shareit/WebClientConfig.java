@@ -1,17 +1,19 @@
 package ru.practicum.shareit;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerExchangeFactory;
 import ru.practicum.shareit.item.ItemClient;
 import ru.practicum.shareit.request.ItemRequestClient;
 import ru.practicum.shareit.user.UserClient;
 
 @Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
 public class WebClientConfig {
     private static final String API_BOOKING_PREFIX = "/bookings";
     private static final String API_ITEM_PREFIX = "/items";
@@ -22,42 +24,31 @@ public class WebClientConfig {
     private String serverUrl;
 
     @Bean
-    public BookingClient bookingClient(RestTemplateBuilder builder) {
-        var restTemplate = builder
-                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_BOOKING_PREFIX))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                .build();
-
-        return new BookingClient(restTemplate);
+    public BookingClient bookingClient(ServerExchangeFactory serverExchangeFactory, ResponseCache responseCache,
+                                       MeterRegistry meterRegistry) {
+        return new BookingClient(serverExchangeFactory.create(serverUrl + API_BOOKING_PREFIX), responseCache,
+                meterRegistry);
     }
 
     @Bean
-    public ItemClient itemClient(RestTemplateBuilder builder) {
-        var restTemplate = builder
-                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_ITEM_PREFIX))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                .build();
-
-        return new ItemClient(restTemplate);
+    public ItemClient itemClient(ServerExchangeFactory serverExchangeFactory, ResponseCache responseCache,
+                                 MeterRegistry meterRegistry) {
+        return new ItemClient(serverExchangeFactory.create(serverUrl + API_ITEM_PREFIX), responseCache,
+                meterRegistry);
     }
 
     @Bean
-    public ItemRequestClient itemRequestClient(RestTemplateBuilder builder) {
-        var restTemplate = builder
-                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_REQUEST_PREFIX))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                .build();
-
-        return new ItemRequestClient(restTemplate);
+    public ItemRequestClient itemRequestClient(ServerExchangeFactory serverExchangeFactory,
+                                               ResponseCache responseCache,
+                                               MeterRegistry meterRegistry) {
+        return new ItemRequestClient(serverExchangeFactory.create(serverUrl + API_REQUEST_PREFIX), responseCache,
+                meterRegistry);
     }
 
     @Bean
-    public UserClient userClient(RestTemplateBuilder builder) {
-        var restTemplate = builder
-                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_USER_PREFIX))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                .build();
-
-        return new UserClient(restTemplate);
+    public UserClient userClient(ServerExchangeFactory serverExchangeFactory, ResponseCache responseCache,
+                                 MeterRegistry meterRegistry) {
+        return new UserClient(serverExchangeFactory.create(serverUrl + API_USER_PREFIX), responseCache,
+                meterRegistry);
     }
 }
@@ -0,0 +1,42 @@
+package ru.practicum.shareit;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.practicum.shareit.client.ServerExchangeFactory;
+import ru.practicum.shareit.client.WebClientServerExchange;
+
+@Configuration
+@ConditionalOnProperty(name = "shareit-server.client", havingValue = "web-client")
+public class WebClientExchangeConfig {
+    // Ожидающих соединения не ограничиваем по количеству, их ограничивает время ожидания
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider shareItServerConnectionProvider(HttpClientProperties properties) {
+        return ConnectionProvider.builder("shareit-server")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(properties.getPoolAcquireTimeout())
+                .maxIdleTime(properties.getKeepAlive())
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public ServerExchangeFactory serverExchangeFactory(WebClient.Builder builder,
+                                                       ConnectionProvider connectionProvider,
+                                                       HttpClientProperties properties) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getReadTimeout());
+        ReactorClientHttpConnector connector = new ReactorClientHttpConnector(httpClient);
+        return baseUrl -> new WebClientServerExchange(builder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(connector)
+                .build());
+    }
+}
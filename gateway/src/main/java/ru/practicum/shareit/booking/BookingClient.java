@@ -1,46 +1,80 @@
 package ru.practicum.shareit.booking;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerExchange;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class BookingClient extends BaseClient {
-    public BookingClient(RestTemplate rest) {
-        super(rest);
+    public BookingClient(ServerExchange serverExchange, ResponseCache responseCache,
+                         MeterRegistry meterRegistry) {
+        // Ответы по бронированиям зависят от текущего времени и не кэшируются, но вещи показывают
+        // последнее и следующее бронирование
+        super(serverExchange, responseCache, meterRegistry, "bookings", "items");
     }
 
-    public ResponseEntity<Object> addBooking(Long bookerId, BookingDto bookingDto) {
+    public Mono<ResponseEntity<Object>> addBooking(Long bookerId, BookingDto bookingDto) {
         return post("", bookerId, bookingDto);
     }
 
-    public ResponseEntity<Object> approveBooking(Long itemOwnerId, Long bookingId, Boolean approved) {
+    public Mono<ResponseEntity<Object>> addBookings(Long bookerId, List<BookingDto> bookingDtos) {
+        return post("/batch", bookerId, bookingDtos);
+    }
+
+    public Mono<ResponseEntity<Object>> approveBooking(Long itemOwnerId, Long bookingId, Boolean approved) {
         Map<String, Object> parameters = Map.of("approved", approved);
         return patch("/" + bookingId + "?approved={approved}", itemOwnerId, parameters, null);
     }
 
-    public ResponseEntity<Object> getBookingById(Long userId, Long bookingId) {
+    public Mono<ResponseEntity<Object>> approveBookings(Long itemOwnerId, List<Long> bookingIds, Boolean approved) {
+        Map<String, Object> parameters = Map.of("approved", approved);
+        return patch("/batch?approved={approved}", itemOwnerId, parameters, bookingIds);
+    }
+
+    public Mono<ResponseEntity<Object>> getBookingById(Long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getAllBookingsByBookerId(Long bookerId, BookingState state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getBookingStateCountsByBookerId(Long bookerId) {
+        return get("/summary", bookerId);
+    }
+
+    public Mono<ResponseEntity<Object>> getBookingStateCountsByItemOwnerId(Long itemOwnerId) {
+        return get("/owner/summary", itemOwnerId);
+    }
+
+    public void exportAllBookingsByItemOwnerId(Long itemOwnerId, HttpServletResponse response) throws IOException {
+        transfer("/owner/export", itemOwnerId, response);
+    }
+
+    public Mono<ResponseEntity<Object>> getAllBookingsByBookerId(Long bookerId, BookingState state, int from,
+                                                                 int size, String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", bookerId, parameters);
+        ));
+        return get(withCursor("?state={state}&from={from}&size={size}", parameters, after), bookerId, parameters);
     }
 
-    public ResponseEntity<Object> getAllBookingsByItemOwnerId(Long itemOwnerId, BookingState state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getAllBookingsByItemOwnerId(Long itemOwnerId, BookingState state, int from,
+                                                                    int size, String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", itemOwnerId, parameters);
+        ));
+        return get(withCursor("/owner?state={state}&from={from}&size={size}", parameters, after), itemOwnerId,
+                parameters);
     }
 }
\ No newline at end of file
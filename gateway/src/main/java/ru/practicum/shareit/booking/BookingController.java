@@ -7,12 +7,20 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -23,42 +31,91 @@ public class BookingController {
     private final BookingClient bookingClient;
 
     @PostMapping
-    public ResponseEntity<Object> addBooking(@RequestHeader(name = "X-Sharer-User-Id") Long bookerId,
-                          @RequestBody @Valid BookingDto bookingDto) {
+    public Mono<ResponseEntity<Object>> addBooking(@RequestHeader(name = "X-Sharer-User-Id") Long bookerId,
+                                @RequestBody @Valid BookingDto bookingDto) {
         log.info("Creating booking {}, userId={}", bookingDto, bookerId);
         return bookingClient.addBooking(bookerId, bookingDto);
     }
 
+    // Строки пакета проверяет сервер, чтобы ошибка в одной строке не отклоняла весь пакет
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Object>> addBookings(@RequestHeader(name = "X-Sharer-User-Id") Long bookerId,
+                                                    @RequestBody @NotEmpty @Size(max = 500)
+                                                    List<BookingDto> bookingDtos) {
+        log.info("Creating {} bookings, userId={}", bookingDtos.size(), bookerId);
+        return bookingClient.addBookings(bookerId, bookingDtos);
+    }
+
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> approvedBooking(@RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId,
-                               @PathVariable Long bookingId,
-                               @RequestParam Boolean approved) {
+    public Mono<ResponseEntity<Object>> approvedBooking(@RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId,
+                                     @PathVariable Long bookingId,
+                                     @RequestParam Boolean approved) {
         log.info("Approved booking bookingId={}, userId={}, approved={}", bookingId, itemOwnerId, approved);
         return bookingClient.approveBooking(itemOwnerId, bookingId, approved);
     }
 
+    @PatchMapping("/batch")
+    public Mono<ResponseEntity<Object>> approveBookings(@RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId,
+                                                        @RequestParam Boolean approved,
+                                                        @RequestBody @NotEmpty @Size(max = 500)
+                                                        List<Long> bookingIds) {
+        log.info("Approved {} bookings, userId={}, approved={}", bookingIds.size(), itemOwnerId, approved);
+        return bookingClient.approveBookings(itemOwnerId, bookingIds, approved);
+    }
+
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBookingById(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                              @PathVariable Long bookingId) {
+    public Mono<ResponseEntity<Object>> getBookingById(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                    @PathVariable Long bookingId) {
         log.info("Get booking with bookingId={}, userId={}, approved={}", bookingId, userId);
         return bookingClient.getBookingById(userId, bookingId);
     }
 
+    @GetMapping("/summary")
+    public Mono<ResponseEntity<Object>> getBookingStateCountsByBookerId(
+            @RequestHeader(name = "X-Sharer-User-Id") Long bookerId) {
+        log.info("Get booking state counts with bookerId={}", bookerId);
+        return bookingClient.getBookingStateCountsByBookerId(bookerId);
+    }
+
+    @GetMapping("/owner/summary")
+    public Mono<ResponseEntity<Object>> getBookingStateCountsByOwnerId(
+            @RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId) {
+        log.info("Get booking state counts with itemOwnerId={}", itemOwnerId);
+        return bookingClient.getBookingStateCountsByItemOwnerId(itemOwnerId);
+    }
+
+    // Выгрузка передается клиенту по мере получения от сервера. Фильтр ETag накопил бы ее целиком в памяти,
+    // чтобы посчитать хэш тела, поэтому для нее он отключается
+    @GetMapping("/owner/export")
+    public void exportAllBookingsByOwnerId(@RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId,
+                                           HttpServletRequest request,
+                                           HttpServletResponse response) throws IOException {
+        log.info("Export bookings with itemOwnerId={}", itemOwnerId);
+        ShallowEtagHeaderFilter.disableContentCaching(request);
+        bookingClient.exportAllBookingsByItemOwnerId(itemOwnerId, response);
+    }
+
     @GetMapping()
-    public ResponseEntity<Object> getAllBookingsByBookerId(@RequestHeader(name = "X-Sharer-User-Id") Long bookerId,
-                                                    @RequestParam(defaultValue = "ALL") BookingState state,
-                                                    @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                    @RequestParam(defaultValue = "10") @Positive int size) {
-        log.info("Get all bookings with bookerId={}, state={}, from={}, size={}", bookerId, state, from, size);
-        return bookingClient.getAllBookingsByBookerId(bookerId, state, from, size);
+    public Mono<ResponseEntity<Object>> getAllBookingsByBookerId(
+            @RequestHeader(name = "X-Sharer-User-Id") Long bookerId,
+            @RequestParam(defaultValue = "ALL") BookingState state,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size,
+            @RequestParam(required = false) String after) {
+        log.info("Get all bookings with bookerId={}, state={}, from={}, size={}, after={}", bookerId, state, from,
+                size, after);
+        return bookingClient.getAllBookingsByBookerId(bookerId, state, from, size, after);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getAllBookingByOwnerId(@RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId,
-                                                  @RequestParam(defaultValue = "ALL") BookingState state,
-                                                  @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                  @RequestParam(defaultValue = "10") @Positive int size) {
-        log.info("Get all bookings with itemOwnerId={}, state={}, from={}, size={}", itemOwnerId, state, from, size);
-        return bookingClient.getAllBookingsByItemOwnerId(itemOwnerId, state, from, size);
+    public Mono<ResponseEntity<Object>> getAllBookingByOwnerId(
+            @RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId,
+            @RequestParam(defaultValue = "ALL") BookingState state,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size,
+            @RequestParam(required = false) String after) {
+        log.info("Get all bookings with itemOwnerId={}, state={}, from={}, size={}, after={}", itemOwnerId, state,
+                from, size, after);
+        return bookingClient.getAllBookingsByItemOwnerId(itemOwnerId, state, from, size, after);
     }
 }
\ No newline at end of file
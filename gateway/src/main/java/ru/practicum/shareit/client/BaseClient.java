@@ -1,121 +1,200 @@
 package ru.practicum.shareit.client;
 
-import java.util.List;
+import java.io.IOException;
 import java.util.Map;
+import java.util.TreeMap;
 
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 
-public class BaseClient {
-    protected final RestTemplate rest;
+import javax.servlet.http.HttpServletResponse;
 
-    public BaseClient(RestTemplate rest) {
-        this.rest = rest;
+public class BaseClient {
+    private static final String REQUEST_TIMER = "shareit.gateway.requests";
+    // Статус запроса, на который сервер не ответил
+    private static final String NO_RESPONSE_STATUS = "CLIENT_ERROR";
+
+    private final ServerExchange serverExchange;
+    @Nullable
+    private final ResponseCache responseCache;
+    @Nullable
+    private final MeterRegistry meterRegistry;
+    // Ресурс, ответы которого кэширует клиент, и ресурсы, чьи ответы устаревают при его изменении
+    private final String resource;
+    private final String[] dependentResources;
+
+    public BaseClient(ServerExchange serverExchange) {
+        this(serverExchange, null, null, "");
+    }
+
+    public BaseClient(ServerExchange serverExchange, @Nullable ResponseCache responseCache,
+                      @Nullable MeterRegistry meterRegistry, String resource, String... dependentResources) {
+        this.serverExchange = serverExchange;
+        this.responseCache = responseCache;
+        this.meterRegistry = meterRegistry;
+        this.resource = resource;
+        this.dependentResources = dependentResources;
+    }
+
+    // Добавляет к пути курсор постраничной выборки, если он указан
+    protected static String withCursor(String path, Map<String, Object> parameters, @Nullable Object after) {
+        if (after == null) {
+            return path;
+        }
+        parameters.put("after", after);
+        return path + "&after={after}";
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected Mono<ResponseEntity<Object>> getCached(String endpoint, String path, Long userId,
+                                                     @Nullable Map<String, Object> parameters) {
+        if (responseCache == null) {
+            return get(path, userId, parameters);
+        }
+        String key = path + " " + (parameters != null ? new TreeMap<>(parameters) : "") + " " + userId;
+        return responseCache.get(resource, endpoint, key, () -> get(path, userId, parameters));
+    }
+
+    protected void transfer(String path, Long userId, HttpServletResponse response) throws IOException {
+        if (meterRegistry == null) {
+            serverExchange.transfer(path, userId, response);
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = NO_RESPONSE_STATUS;
+        try {
+            serverExchange.transfer(path, userId, response);
+            status = String.valueOf(response.getStatus());
+        } finally {
+            sample.stop(requestTimer(HttpMethod.GET, path, status));
+        }
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
-
-        ResponseEntity<Object> shareitServerResponse;
-        try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId,
+                                                                @Nullable Map<String, Object> parameters,
+                                                                @Nullable T body) {
+        Mono<ResponseEntity<Object>> response = timed(method, path,
+                serverExchange.exchange(method, path, userId, parameters, body));
+        if (method == HttpMethod.GET) {
+            return response;
         }
-        return prepareGatewayResponse(shareitServerResponse);
+        // Даже неуспешный запрос мог частично изменить данные, поэтому кэш сбрасывается всегда
+        return response.doFinally(signal -> invalidateCachedResponses());
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-        if (userId != null) {
-            headers.set("X-Sharer-User-Id", String.valueOf(userId));
+    // Время запроса к серверу, ответы из кэша шлюза не учитываются. Отсчет начинается с подписки,
+    // потому что запрос отправляется только при ней
+    private Mono<ResponseEntity<Object>> timed(HttpMethod method, String path,
+                                               Mono<ResponseEntity<Object>> response) {
+        if (meterRegistry == null) {
+            return response;
+        }
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return response
+                    .doOnSuccess(entity -> sample.stop(requestTimer(method, path,
+                            entity != null ? String.valueOf(entity.getStatusCodeValue()) : NO_RESPONSE_STATUS)))
+                    .doOnError(e -> sample.stop(requestTimer(method, path, NO_RESPONSE_STATUS)));
+        });
+    }
+
+    private Timer requestTimer(HttpMethod method, String path, String status) {
+        return Timer.builder(REQUEST_TIMER)
+                .tag("method", method.name())
+                .tag("uri", route(resource, path))
+                .tag("status", status)
+                .register(meterRegistry);
+    }
+
+    // Маршрут без идентификаторов и параметров запроса: число таймеров не должно расти с числом вещей
+    static String route(String resource, String path) {
+        int queryStart = path.indexOf('?');
+        String pathWithoutQuery = queryStart >= 0 ? path.substring(0, queryStart) : path;
+        StringBuilder route = new StringBuilder("/").append(resource);
+        for (String segment : pathWithoutQuery.split("/")) {
+            if (!segment.isEmpty()) {
+                route.append('/').append(isId(segment) ? "{id}" : segment);
+            }
         }
-        return headers;
+        return route.toString();
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    private static boolean isId(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
-
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+    private void invalidateCachedResponses() {
+        if (responseCache != null) {
+            responseCache.invalidate(resource);
+            responseCache.invalidate(dependentResources);
         }
-
-        return responseBuilder.build();
     }
-}
\ No newline at end of file
+}
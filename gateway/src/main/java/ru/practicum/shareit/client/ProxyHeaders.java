@@ -0,0 +1,32 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Set;
+
+public final class ProxyHeaders {
+    // Заголовки соединения между шлюзом и сервером не относятся к соединению шлюза с клиентом
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(),
+            "keep-alive",
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase());
+
+    private ProxyHeaders() {
+    }
+
+    public static HttpHeaders withoutHopByHop(HttpHeaders serverHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        serverHeaders.forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                headers.addAll(name, values);
+            }
+        });
+        return headers;
+    }
+
+    public static void copyWithoutHopByHop(HttpHeaders serverHeaders, HttpServletResponse response) {
+        withoutHopByHop(serverHeaders).forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+    }
+}
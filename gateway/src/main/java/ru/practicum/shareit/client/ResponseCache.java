@@ -0,0 +1,84 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Кэш успешных ответов сервера на GET-запросы с вытеснением давно не использованных записей. Изменение ресурса
+// увеличивает его поколение, и все ответы, полученные до изменения, перестают отдаваться
+public class ResponseCache {
+    private final Map<String, Duration> ttlByEndpoint;
+    private final Clock clock;
+    private final Map<String, AtomicLong> generationByResource = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Entry> entries;
+
+    public ResponseCache(ResponseCacheProperties properties, Clock clock) {
+        this.ttlByEndpoint = Map.copyOf(properties.getTtl());
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > properties.getMaxSize();
+            }
+        };
+    }
+
+    public Mono<ResponseEntity<Object>> get(String resource, String endpoint, String key,
+                                            Supplier<Mono<ResponseEntity<Object>>> loader) {
+        Duration ttl = ttlByEndpoint.get(endpoint);
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            return loader.get();
+        }
+
+        String entryKey = endpoint + " " + key;
+        return Mono.defer(() -> {
+            long generation = generation(resource).get();
+            Instant now = clock.instant();
+            synchronized (entries) {
+                Entry entry = entries.get(entryKey);
+                if (entry != null && entry.generation == generation && now.isBefore(entry.expiresAt)) {
+                    return Mono.just(entry.response);
+                }
+            }
+
+            // Поколение запоминается до запроса: если ресурс изменится во время запроса, ответ сразу устареет
+            return loader.get().doOnNext(response -> {
+                if (response.getStatusCode().is2xxSuccessful()) {
+                    synchronized (entries) {
+                        entries.put(entryKey, new Entry(response, generation, now.plus(ttl)));
+                    }
+                }
+            });
+        });
+    }
+
+    public void invalidate(String... resources) {
+        for (String resource : resources) {
+            generation(resource).incrementAndGet();
+        }
+    }
+
+    private AtomicLong generation(String resource) {
+        return generationByResource.computeIfAbsent(resource, r -> new AtomicLong());
+    }
+
+    private static class Entry {
+        private final ResponseEntity<Object> response;
+        private final long generation;
+        private final Instant expiresAt;
+
+        private Entry(ResponseEntity<Object> response, long generation, Instant expiresAt) {
+            this.response = response;
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
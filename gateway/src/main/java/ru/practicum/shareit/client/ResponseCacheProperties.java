@@ -0,0 +1,18 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-gateway.response-cache")
+public class ResponseCacheProperties {
+    private int maxSize = 10_000;
+    // Время жизни ответа по имени эндпоинта, эндпоинты без времени жизни не кэшируются
+    private Map<String, Duration> ttl = new HashMap<>();
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+// Отправка запроса на сервер: блокирующая через RestTemplate или неблокирующая через WebClient
+public interface ServerExchange {
+    <T> Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, @Nullable Long userId,
+                                              @Nullable Map<String, Object> parameters, @Nullable T body);
+
+    // Ответ сервера на GET-запрос передается клиенту по мере получения, без буферизации тела целиком
+    void transfer(String path, @Nullable Long userId, HttpServletResponse response) throws IOException;
+}
@@ -0,0 +1,84 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+// Неблокирующий запрос: поток обработки запроса к шлюзу освобождается до прихода ответа сервера.
+// Тело ответа передается клиенту как есть, без разбора JSON
+public class WebClientServerExchange implements ServerExchange {
+    private static final int TRANSFER_PREFETCH = 16;
+
+    private final WebClient webClient;
+
+    public WebClientServerExchange(WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    @Override
+    public <T> Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, @Nullable Long userId,
+                                                     @Nullable Map<String, Object> parameters, @Nullable T body) {
+        WebClient.RequestBodySpec request = webClient.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(headers -> {
+                    headers.setContentType(MediaType.APPLICATION_JSON);
+                    headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+                    if (userId != null) {
+                        headers.set("X-Sharer-User-Id", String.valueOf(userId));
+                    }
+                });
+        return (body != null ? request.bodyValue(body) : request)
+                .exchangeToMono(WebClientServerExchange::prepareGatewayResponse);
+    }
+
+    // Части тела приходят в потоке WebClient, а пишутся клиенту в потоке обработки запроса к шлюзу:
+    // блокирующая запись не должна занимать поток ввода-вывода. Очередь между ними ограничена
+    @Override
+    public void transfer(String path, @Nullable Long userId, HttpServletResponse response) throws IOException {
+        Flux<DataBuffer> body = webClient.get()
+                .uri(path)
+                .headers(headers -> {
+                    headers.setAccept(List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON));
+                    if (userId != null) {
+                        headers.set("X-Sharer-User-Id", String.valueOf(userId));
+                    }
+                })
+                .exchangeToFlux(shareitServerResponse -> {
+                    response.setStatus(shareitServerResponse.rawStatusCode());
+                    ProxyHeaders.copyWithoutHopByHop(shareitServerResponse.headers().asHttpHeaders(), response);
+                    return shareitServerResponse.bodyToFlux(DataBuffer.class);
+                });
+        OutputStream outputStream = response.getOutputStream();
+        for (DataBuffer buffer : body.toIterable(TRANSFER_PREFETCH)) {
+            try (InputStream inputStream = buffer.asInputStream()) {
+                StreamUtils.copy(inputStream, outputStream);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+        outputStream.flush();
+    }
+
+    private static Mono<ResponseEntity<Object>> prepareGatewayResponse(ClientResponse response) {
+        HttpHeaders headers = ProxyHeaders.withoutHopByHop(response.headers().asHttpHeaders());
+        return response.bodyToMono(byte[].class)
+                .map(body -> ResponseEntity.status(response.rawStatusCode()).headers(headers).<Object>body(body))
+                .defaultIfEmpty(ResponseEntity.status(response.rawStatusCode()).headers(headers).build());
+    }
+}
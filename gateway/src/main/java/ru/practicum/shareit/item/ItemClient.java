@@ -1,48 +1,66 @@
 package ru.practicum.shareit.item;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerExchange;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 public class ItemClient extends BaseClient {
-    public ItemClient(RestTemplate rest) {
-        super(rest);
+    public ItemClient(ServerExchange serverExchange, ResponseCache responseCache,
+                      MeterRegistry meterRegistry) {
+        // Вещи входят в ответы на запросы
+        super(serverExchange, responseCache, meterRegistry, "items", "requests");
     }
 
-    public ResponseEntity<Object> addItem(Long ownerId, ItemDto itemDto) {
+    public Mono<ResponseEntity<Object>> addItem(Long ownerId, ItemDto itemDto) {
         return post("", ownerId, itemDto);
     }
 
-    public ResponseEntity<Object> updateItem(Long ownerId, Long itemId, ItemDto itemDto) {
+    public Mono<ResponseEntity<Object>> updateItem(Long ownerId, Long itemId, ItemDto itemDto) {
         return patch("/" + itemId, ownerId, itemDto);
     }
 
-    public ResponseEntity<Object> getItemById(Long itemId, Long userId) {
-        return get("/" + itemId, userId);
+    public Mono<ResponseEntity<Object>> getItemById(Long itemId, Long userId) {
+        return getCached("item", "/" + itemId, userId, null);
     }
 
-    public ResponseEntity<Object> getAllItemsByOwnerId(Long ownerId, int from, int size) {
+    // Календарь зависит от бронирований и не кэшируется
+    public Mono<ResponseEntity<Object>> getItemAvailability(Long itemId, Long userId, LocalDateTime from,
+                                                            LocalDateTime to) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
-                "size", size
+                "to", to
         );
-        return get("?from={from}&size={size}", ownerId, parameters);
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getItemsBySearch(String textForSearch, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getAllItemsByOwnerId(Long ownerId, int from, int size, Long after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
+                "from", from,
+                "size", size
+        ));
+        return get(withCursor("?from={from}&size={size}", parameters, after), ownerId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getItemsBySearch(String textForSearch, int from, int size, Long after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "text", textForSearch,
                 "from", from,
                 "size", size
-        );
-        return get("/search?text={text}&from={from}&size={size}", null, parameters);
+        ));
+        return getCached("item-search", withCursor("/search?text={text}&from={from}&size={size}", parameters, after),
+                null, parameters);
     }
 
-    public ResponseEntity<Object> addComment(Long authorId, Long itemId, CommentDto commentDto) {
+    public Mono<ResponseEntity<Object>> addComment(Long authorId, Long itemId, CommentDto commentDto) {
         return post("/" + itemId + "/comment", authorId, commentDto);
     }
 }
@@ -2,16 +2,20 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 
 @Controller
 @RequestMapping(path = "/items")
@@ -22,47 +26,63 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> addItem(@RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
-                                          @RequestBody @Valid ItemDto itemDto) {
+    public Mono<ResponseEntity<Object>> addItem(@RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
+                                                @RequestBody @Valid ItemDto itemDto) {
         log.info("Creating item {}", itemDto);
         return itemClient.addItem(ownerId, itemDto);
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
-                              @PathVariable Long itemId,
-                              @RequestBody ItemDto itemDto) {
+    public Mono<ResponseEntity<Object>> updateItem(@RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
+                                    @PathVariable Long itemId,
+                                    @RequestBody ItemDto itemDto) {
         log.info("Update item with ownerId={}, itemId={}, item {}", ownerId, itemId, itemDto);
         return itemClient.updateItem(ownerId, itemId, itemDto);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItemById(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                          @PathVariable Long itemId) {
+    public Mono<ResponseEntity<Object>> getItemById(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                                @PathVariable Long itemId) {
         log.info("Get item with userId={}, itemId={}", userId, itemId);
         return itemClient.getItemById(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public Mono<ResponseEntity<Object>> getItemAvailability(
+            @RequestHeader(name = "X-Sharer-User-Id") Long userId,
+            @PathVariable Long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Get item availability with userId={}, itemId={}, from={}, to={}", userId, itemId, from, to);
+        if (!to.isAfter(from)) {
+            throw new ValidationException("Конец периода должен быть позже его начала");
+        }
+        return itemClient.getItemAvailability(itemId, userId, from, to);
+    }
+
     @GetMapping
-    public ResponseEntity<Object> getAllItemsByOwnerId(@RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
-                                                       @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                       @RequestParam(defaultValue = "10") @Positive int size) {
-        log.info("Get all items with ownerId={}, from={}, size={}", ownerId, from, size);
-        return itemClient.getAllItemsByOwnerId(ownerId, from, size);
+    public Mono<ResponseEntity<Object>> getAllItemsByOwnerId(
+            @RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size,
+            @RequestParam(required = false) @PositiveOrZero Long after) {
+        log.info("Get all items with ownerId={}, from={}, size={}, after={}", ownerId, from, size, after);
+        return itemClient.getAllItemsByOwnerId(ownerId, from, size, after);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> getItemsBySearch(@RequestParam(name = "text") String textForSearch,
-                                                @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                @RequestParam(defaultValue = "10") @Positive int size) {
-        log.info("Get item with text={}, from={}, size={}", textForSearch, from, size);
-        return itemClient.getItemsBySearch(textForSearch, from, size);
+    public Mono<ResponseEntity<Object>> getItemsBySearch(@RequestParam(name = "text") String textForSearch,
+                                                      @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                      @RequestParam(defaultValue = "10") @Positive int size,
+                                                      @RequestParam(required = false) @PositiveOrZero Long after) {
+        log.info("Get item with text={}, from={}, size={}, after={}", textForSearch, from, size, after);
+        return itemClient.getItemsBySearch(textForSearch, from, size, after);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> addComment(@RequestHeader(name = "X-Sharer-User-Id") Long authorId,
-                                 @PathVariable Long itemId,
-                                 @RequestBody @Valid CommentDto commentDto) {
+    public Mono<ResponseEntity<Object>> addComment(@RequestHeader(name = "X-Sharer-User-Id") Long authorId,
+                                       @PathVariable Long itemId,
+                                       @RequestBody @Valid CommentDto commentDto) {
         log.info("Creating comment {}", commentDto);
         return itemClient.addComment(authorId, itemId, commentDto);
     }
@@ -1,34 +1,40 @@
 package ru.practicum.shareit.request;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerExchange;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.util.HashMap;
 import java.util.Map;
 
 public class ItemRequestClient extends BaseClient {
-    public ItemRequestClient(RestTemplate rest) {
-        super(rest);
+    public ItemRequestClient(ServerExchange serverExchange, ResponseCache responseCache,
+                             MeterRegistry meterRegistry) {
+        super(serverExchange, responseCache, meterRegistry, "requests");
     }
 
-    public ResponseEntity<Object> addItemRequest(Long requestorId, ItemRequestDto itemRequestDto) {
+    public Mono<ResponseEntity<Object>> addItemRequest(Long requestorId, ItemRequestDto itemRequestDto) {
         return post("", requestorId, itemRequestDto);
     }
 
-    public ResponseEntity<Object> getOwnItemRequests(Long requestorId) {
+    public Mono<ResponseEntity<Object>> getOwnItemRequests(Long requestorId) {
         return get("", requestorId);
     }
 
-    public ResponseEntity<Object> getAllItemRequests(Long userId, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getAllItemRequests(Long userId, int from, int size, String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        ));
+        return getCached("request-all", withCursor("/all?from={from}&size={size}", parameters, after), userId,
+                parameters);
     }
 
-    public ResponseEntity<Object> getItemRequestById(Long userId, Long requestId) {
+    public Mono<ResponseEntity<Object>> getItemRequestById(Long userId, Long requestId) {
         return get("/" + requestId, userId);
     }
 }
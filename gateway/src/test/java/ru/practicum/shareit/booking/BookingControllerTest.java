@@ -6,23 +6,39 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.util.WebUtils;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingStatus;
+import ru.practicum.shareit.client.ResponseCacheConfig;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import javax.servlet.http.HttpServletResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = BookingController.class)
+@Import(ResponseCacheConfig.class)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class BookingControllerTest {
     private final ObjectMapper objectMapper;
@@ -50,6 +66,53 @@ public class BookingControllerTest {
                 .andExpect(status().is4xxClientError());
     }
 
+    @Test
+    void addEmptyBookingsBatch() throws Exception {
+        mockMvc.perform(post("/bookings/batch")
+                        .content("[]")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void approveEmptyBookingsBatch() throws Exception {
+        mockMvc.perform(patch("/bookings/batch")
+                        .content("[]")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("approved", "true")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Первая строка выгрузки должна дойти до клиента, пока сервер еще передает остальные
+    @Test
+    void exportIsNotBufferedByEtagFilter() throws Exception {
+        AtomicReference<String> sentBeforeUpstreamEnd = new AtomicReference<>();
+        doAnswer(invocation -> {
+            HttpServletResponse response = invocation.getArgument(1);
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            response.getOutputStream().write("{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            response.getOutputStream().flush();
+            MockHttpServletResponse client = WebUtils.getNativeResponse(response, MockHttpServletResponse.class);
+            sentBeforeUpstreamEnd.set(client.getContentAsString(StandardCharsets.UTF_8));
+            response.getOutputStream().write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(bookingClient).exportAllBookingsByItemOwnerId(eq(1L), any());
+
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(content().string("{\"id\":2}\n{\"id\":1}\n"));
+
+        assertThat(sentBeforeUpstreamEnd.get(), equalTo("{\"id\":2}\n"));
+    }
+
     private UserDto makeUserDto(Long id, String name, String email) {
         return UserDto.builder()
                 .id(id)
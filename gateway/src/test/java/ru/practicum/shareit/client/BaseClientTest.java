@@ -0,0 +1,73 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BaseClientTest {
+    private final ServerExchange serverExchange = mock(ServerExchange.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BaseClient client = new BaseClient(serverExchange, null, meterRegistry, "items");
+
+    @Test
+    void requestsAreTimedByRoute() {
+        when(serverExchange.exchange(any(), anyString(), any(), any(), any()))
+                .thenReturn(Mono.just(ResponseEntity.ok("item")));
+        when(serverExchange.exchange(any(), eq("/3"), any(), any(), any()))
+                .thenReturn(Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).build()));
+
+        Mono<ResponseEntity<Object>> notSubscribed = client.get("/1", 1L);
+        client.get("/1", 1L).block();
+        client.get("/2", 1L).block();
+        client.get("/3", 1L).block();
+        client.patch("/2", 1L, Map.of("name", "Дрель")).block();
+
+        assertThat(count("GET", "/items/{id}", "200"), equalTo(2L));
+        assertThat(count("GET", "/items/{id}", "404"), equalTo(1L));
+        assertThat(count("PATCH", "/items/{id}", "200"), equalTo(1L));
+    }
+
+    @Test
+    void failedRequestIsTimed() {
+        when(serverExchange.exchange(any(), anyString(), any(), any(), any()))
+                .thenReturn(Mono.error(new IllegalStateException()));
+
+        try {
+            client.get("/1", 1L).block();
+        } catch (IllegalStateException ignored) {
+        }
+
+        assertThat(count("GET", "/items/{id}", "CLIENT_ERROR"), equalTo(1L));
+    }
+
+    @Test
+    void routeWithoutIdsAndQuery() {
+        assertThat(BaseClient.route("items", ""), equalTo("/items"));
+        assertThat(BaseClient.route("items", "/12/comment"), equalTo("/items/{id}/comment"));
+        assertThat(BaseClient.route("items", "/search?text={text}&from={from}&size={size}"),
+                equalTo("/items/search"));
+        assertThat(BaseClient.route("bookings", "?state={state}&after={after}"), equalTo("/bookings"));
+        assertThat(BaseClient.route("bookings", "/7?approved={approved}"), equalTo("/bookings/{id}"));
+    }
+
+    private long count(String method, String uri, String status) {
+        Timer timer = meterRegistry.find("shareit.gateway.requests")
+                .tags("method", method, "uri", uri, "status", status)
+                .timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ResponseCacheTest {
+    private final Instant now = Instant.parse("2030-01-01T12:00:00Z");
+    private final Clock clock = mock(Clock.class);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Supplier<Mono<ResponseEntity<Object>>> loader = () -> Mono.fromSupplier(
+            () -> ResponseEntity.ok(calls.incrementAndGet()));
+
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    void beforeEach() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setMaxSize(2);
+        properties.setTtl(Map.of("item", Duration.ofSeconds(5)));
+        responseCache = new ResponseCache(properties, clock);
+        when(clock.instant()).thenReturn(now);
+    }
+
+    @Test
+    void getFromCacheUntilExpired() {
+        assertThat(responseCache.get("items", "item", "/1", loader).block().getBody(), equalTo(1));
+        assertThat(responseCache.get("items", "item", "/1", loader).block().getBody(), equalTo(1));
+        assertThat(responseCache.get("items", "item", "/2", loader).block().getBody(), equalTo(2));
+
+        when(clock.instant()).thenReturn(now.plusSeconds(5));
+        assertThat(responseCache.get("items", "item", "/1", loader).block().getBody(), equalTo(3));
+    }
+
+    @Test
+    void getWithoutTtlIsNotCached() {
+        assertThat(responseCache.get("items", "item-search", "/search", loader).block().getBody(), equalTo(1));
+        assertThat(responseCache.get("items", "item-search", "/search", loader).block().getBody(), equalTo(2));
+    }
+
+    @Test
+    void getErrorIsNotCached() {
+        Supplier<Mono<ResponseEntity<Object>>> notFoundLoader = () -> Mono.fromSupplier(
+                () -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(calls.incrementAndGet()));
+
+        assertThat(responseCache.get("items", "item", "/1", notFoundLoader).block().getBody(), equalTo(1));
+        assertThat(responseCache.get("items", "item", "/1", notFoundLoader).block().getBody(), equalTo(2));
+    }
+
+    @Test
+    void invalidate() {
+        assertThat(responseCache.get("items", "item", "/1", loader).block().getBody(), equalTo(1));
+
+        responseCache.invalidate("users");
+        assertThat(responseCache.get("items", "item", "/1", loader).block().getBody(), equalTo(1));
+
+        responseCache.invalidate("items");
+        assertThat(responseCache.get("items", "item", "/1", loader).block().getBody(), equalTo(2));
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() {
+        responseCache.get("items", "item", "/1", loader).block();
+        responseCache.get("items", "item", "/2", loader).block();
+        responseCache.get("items", "item", "/1", loader).block();
+        responseCache.get("items", "item", "/3", loader).block();
+
+        assertThat(responseCache.get("items", "item", "/1", loader).block().getBody(), equalTo(1));
+        assertThat(responseCache.get("items", "item", "/2", loader).block().getBody(), equalTo(4));
+    }
+}
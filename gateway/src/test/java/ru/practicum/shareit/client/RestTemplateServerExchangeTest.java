@@ -0,0 +1,121 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class RestTemplateServerExchangeTest {
+    private static final String ITEMS_JSON = "[{\"id\":1,\"name\":\"Дрель\",\"available\":true}]";
+
+    private RestTemplate rest;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void beforeEach() {
+        rest = new RestTemplate();
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory("http://localhost:9090/items"));
+        server = MockRestServiceServer.bindTo(rest).build();
+    }
+
+    @Test
+    void exchangeWithPassthrough() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Next-Cursor", "1");
+        headers.set(HttpHeaders.CONNECTION, "keep-alive");
+        server.expect(requestTo("http://localhost:9090/items?from=0&size=10"))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess(ITEMS_JSON, MediaType.APPLICATION_JSON).headers(headers));
+
+        ResponseEntity<Object> response = new RestTemplateServerExchange(rest, true)
+                .exchange(HttpMethod.GET, "?from={from}&size={size}", 1L, Map.of("from", 0, "size", 10), null)
+                .block();
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody(), instanceOf(byte[].class));
+        assertThat(new String((byte[]) response.getBody(), StandardCharsets.UTF_8), equalTo(ITEMS_JSON));
+        assertThat(response.getHeaders().getContentType(), equalTo(MediaType.APPLICATION_JSON));
+        assertThat(response.getHeaders().getFirst("X-Next-Cursor"), equalTo("1"));
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONNECTION), equalTo(false));
+        server.verify();
+    }
+
+    @Test
+    void exchangeWithPassthroughAndError() {
+        String errorJson = "{\"error\":\"Не найдена вещь с id 1\"}";
+        server.expect(requestTo("http://localhost:9090/items/1"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(errorJson));
+
+        ResponseEntity<Object> response = new RestTemplateServerExchange(rest, true)
+                .exchange(HttpMethod.GET, "/1", 1L, null, null)
+                .block();
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+        assertThat(new String((byte[]) response.getBody(), StandardCharsets.UTF_8), equalTo(errorJson));
+        assertThat(response.getHeaders().getContentType(), equalTo(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void transfer() throws IOException {
+        String bookingsNdjson = "{\"id\":2}\n{\"id\":1}\n";
+        server.expect(requestTo("http://localhost:9090/items/owner/export"))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess(bookingsNdjson, MediaType.APPLICATION_NDJSON));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new RestTemplateServerExchange(rest).transfer("/owner/export", 1L, response);
+
+        assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+        assertThat(response.getContentType(), equalTo(MediaType.APPLICATION_NDJSON_VALUE));
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8), equalTo(bookingsNdjson));
+        server.verify();
+    }
+
+    @Test
+    void transferWithError() throws IOException {
+        String errorJson = "{\"error\":\"Не найден пользователь с id 1\"}";
+        server.expect(requestTo("http://localhost:9090/items/owner/export"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(errorJson));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new RestTemplateServerExchange(rest).transfer("/owner/export", 1L, response);
+
+        assertThat(response.getStatus(), equalTo(HttpStatus.NOT_FOUND.value()));
+        assertThat(response.getContentType(), equalTo(MediaType.APPLICATION_JSON_VALUE));
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8), equalTo(errorJson));
+    }
+
+    @Test
+    void exchangeWithoutPassthrough() {
+        server.expect(requestTo("http://localhost:9090/items/1"))
+                .andRespond(withSuccess("{\"id\":1}", MediaType.APPLICATION_JSON));
+
+        ResponseEntity<Object> response = new RestTemplateServerExchange(rest)
+                .exchange(HttpMethod.GET, "/1", 1L, null, null)
+                .block();
+
+        assertThat(response.getBody(), equalTo(Map.of("id", 1)));
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.booking.model.BookingState;
+
+// Время методов классов, помеченных @Timed. Списки бронирований дополнительно размечаются состоянием,
+// у остальных методов состояние none: у таймеров одного имени должен быть одинаковый набор тегов
+@Configuration
+public class MetricsConfig {
+    private static final String NO_STATE = "none";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry, MetricsConfig::tags);
+    }
+
+    private static Iterable<Tag> tags(ProceedingJoinPoint joinPoint) {
+        Signature signature = joinPoint.getStaticPart().getSignature();
+        String state = NO_STATE;
+        for (Object arg : joinPoint.getArgs()) {
+            if (arg instanceof BookingState) {
+                state = ((BookingState) arg).name();
+                break;
+            }
+        }
+        return Tags.of("class", signature.getDeclaringType().getSimpleName(),
+                "method", signature.getName(),
+                "state", state);
+    }
+}
@@ -1,12 +1,20 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStateCountsDto;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.pagination.SeekCursor;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 
 @RequiredArgsConstructor
 @RestController
@@ -20,6 +28,12 @@ public class BookingController {
         return bookingService.addBooking(bookerId, bookingDto);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> addBookings(@RequestHeader(name = "X-Sharer-User-Id") Long bookerId,
+                                                   @RequestBody List<BookingDto> bookingDtos) {
+        return bookingService.addBookings(bookerId, bookingDtos);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDto approvedBooking(@RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId,
                                     @PathVariable Long bookingId,
@@ -27,25 +41,73 @@ public class BookingController {
         return bookingService.approveBooking(itemOwnerId, bookingId, approved);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingBatchResultDto> approveBookings(@RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId,
+                                                       @RequestParam Boolean approved,
+                                                       @RequestBody List<Long> bookingIds) {
+        return bookingService.approveBookings(itemOwnerId, bookingIds, approved);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingDto getBookingById(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
                                    @PathVariable Long bookingId) {
         return bookingService.getBookingById(userId, bookingId);
     }
 
+    @GetMapping("/summary")
+    public BookingStateCountsDto getBookingStateCountsByBookerId(
+            @RequestHeader(name = "X-Sharer-User-Id") Long bookerId) {
+        return bookingService.getBookingStateCountsByBookerId(bookerId);
+    }
+
+    @GetMapping("/owner/summary")
+    public BookingStateCountsDto getBookingStateCountsByOwnerId(
+            @RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId) {
+        return bookingService.getBookingStateCountsByItemOwnerId(itemOwnerId);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportAllBookingsByOwnerId(@RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId,
+                                           HttpServletResponse response) throws IOException {
+        // Пользователь проверяется до выбора типа ответа, иначе ошибка не сможет вернуться в JSON
+        bookingService.checkItemOwnerExists(itemOwnerId);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        bookingService.exportAllBookingsByItemOwnerId(itemOwnerId, response.getOutputStream());
+    }
+
     @GetMapping()
-    public Collection<BookingDto> getAllBookingsByBookerId(@RequestHeader(name = "X-Sharer-User-Id") Long bookerId,
-                                                    @RequestParam BookingState state,
-                                                    @RequestParam int from,
-                                                    @RequestParam int size) {
-        return bookingService.getAllBookingsByBookerId(bookerId, state, from, size);
+    public ResponseEntity<Collection<BookingDto>> getAllBookingsByBookerId(
+            @RequestHeader(name = "X-Sharer-User-Id") Long bookerId,
+            @RequestParam BookingState state,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam int size,
+            @RequestParam(required = false) String after) {
+        if (after == null) {
+            return ResponseEntity.ok(bookingService.getAllBookingsByBookerId(bookerId, state, from, size));
+        }
+        return withNextCursor(bookingService.getAllBookingsByBookerId(bookerId, state, after, size));
     }
 
     @GetMapping("/owner")
-    public Collection<BookingDto> getAllBookingByOwnerId(@RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId,
-                                                  @RequestParam BookingState state,
-                                                  @RequestParam int from,
-                                                  @RequestParam int size) {
-        return bookingService.getAllBookingsByItemOwnerId(itemOwnerId, state, from, size);
+    public ResponseEntity<Collection<BookingDto>> getAllBookingByOwnerId(
+            @RequestHeader(name = "X-Sharer-User-Id") Long itemOwnerId,
+            @RequestParam BookingState state,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam int size,
+            @RequestParam(required = false) String after) {
+        if (after == null) {
+            return ResponseEntity.ok(bookingService.getAllBookingsByItemOwnerId(itemOwnerId, state, from, size));
+        }
+        return withNextCursor(bookingService.getAllBookingsByItemOwnerId(itemOwnerId, state, after, size));
+    }
+
+    // Курсор следующей страницы отдается с полной точностью даты, которая теряется при сериализации в JSON
+    private ResponseEntity<Collection<BookingDto>> withNextCursor(Collection<BookingDto> bookings) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        bookings.stream()
+                .reduce((first, second) -> second)
+                .ifPresent(last -> response.header(SeekCursor.NEXT_CURSOR_HEADER,
+                        SeekCursor.of(last.getStart(), last.getId()).toString()));
+        return response.body(bookings);
     }
 }
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+// Результат по одной строке пакета: созданное бронирование или код и текст ошибки
+@RequiredArgsConstructor
+@Getter
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BookingBatchResultDto {
+    Integer index;
+    Integer status;
+    BookingDto booking;
+    String error;
+}
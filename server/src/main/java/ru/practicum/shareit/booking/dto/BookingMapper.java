@@ -1,14 +1,18 @@
 package ru.practicum.shareit.booking.dto;
 
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingHistoryRecord;
+import ru.practicum.shareit.booking.model.BookingStateCounts;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingView;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.Collection;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class BookingMapper {
@@ -39,14 +43,64 @@ public class BookingMapper {
         return bookings.stream().map(BookingMapper::mapToBookingDto).collect(Collectors.toList());
     }
 
-    public static SimpleBookingDto mapToSimpleBookingDto(Booking booking) {
+    public static BookingDto mapToBookingDto(BookingView booking) {
+        return BookingDto.builder()
+                .id(booking.getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .item(ItemDto.builder()
+                        .id(booking.getItemId())
+                        .name(booking.getItemName())
+                        .description(booking.getItemDescription())
+                        .available(booking.getItemAvailable())
+                        .requestId(booking.getItemRequestId())
+                        .build())
+                .booker(UserDto.builder()
+                        .id(booking.getBookerId())
+                        .name(booking.getBookerName())
+                        .email(booking.getBookerEmail())
+                        .build())
+                .status(booking.getStatus())
+                .build();
+    }
+
+    public static Collection<BookingDto> mapToBookingDtoFromViews(Collection<BookingView> bookings) {
+        return bookings.stream().map(BookingMapper::mapToBookingDto).collect(Collectors.toList());
+    }
+
+    public static BookingStateCountsDto mapToBookingStateCountsDto(BookingStateCounts counts) {
+        return BookingStateCountsDto.builder()
+                .all(counts.getAll())
+                .current(counts.getCurrent())
+                .past(counts.getPast())
+                .future(counts.getFuture())
+                .waiting(counts.getWaiting())
+                .rejected(counts.getRejected())
+                .build();
+    }
+
+    public static BookingExportDto mapToBookingExportDto(BookingHistoryRecord record) {
+        return BookingExportDto.builder()
+                .id(record.getId())
+                .start(record.getStart())
+                .end(record.getEnd())
+                .status(record.getStatus())
+                .itemId(record.getItemId())
+                .itemName(record.getItemName())
+                .bookerId(record.getBookerId())
+                .bookerName(record.getBookerName())
+                .build();
+    }
+
+    // Id ленивого бронирования берется без его загрузки, автор передается отдельно
+    public static SimpleBookingDto mapToSimpleBookingDto(Booking booking, Long bookerId) {
         if (booking == null) {
             return null;
         }
 
         return SimpleBookingDto.builder()
                 .id(booking.getId())
-                .bookerId(Optional.ofNullable(booking.getBooker()).map(User::getId).orElse(null))
+                .bookerId(bookerId)
                 .build();
     }
 }
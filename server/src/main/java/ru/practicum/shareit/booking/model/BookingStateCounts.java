@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Optional;
+
+@Getter
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BookingStateCounts {
+    long all;
+    long current;
+    long past;
+    long future;
+    long waiting;
+    long rejected;
+
+    // Суммы по пустой выборке приходят из БД как null
+    public BookingStateCounts(Long all, Long current, Long past, Long future, Long waiting, Long rejected) {
+        this.all = valueOf(all);
+        this.current = valueOf(current);
+        this.past = valueOf(past);
+        this.future = valueOf(future);
+        this.waiting = valueOf(waiting);
+        this.rejected = valueOf(rejected);
+    }
+
+    private static long valueOf(Long count) {
+        return Optional.ofNullable(count).orElse(0L);
+    }
+}
@@ -1,18 +1,39 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStateCountsDto;
 import ru.practicum.shareit.booking.model.BookingState;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collection;
+import java.util.List;
 
 public interface BookingService {
     BookingDto addBooking(Long bookerId, BookingDto bookingDto);
 
+    List<BookingBatchResultDto> addBookings(Long bookerId, List<BookingDto> bookingDtos);
+
     BookingDto approveBooking(Long itemOwnerId, Long bookingId, Boolean approved);
 
+    List<BookingBatchResultDto> approveBookings(Long itemOwnerId, List<Long> bookingIds, Boolean approved);
+
     BookingDto getBookingById(Long userId, Long bookingId);
 
+    BookingStateCountsDto getBookingStateCountsByBookerId(Long bookerId);
+
+    BookingStateCountsDto getBookingStateCountsByItemOwnerId(Long itemOwnerId);
+
+    void checkItemOwnerExists(Long itemOwnerId);
+
+    void exportAllBookingsByItemOwnerId(Long itemOwnerId, OutputStream outputStream) throws IOException;
+
     Collection<BookingDto> getAllBookingsByBookerId(Long bookerId, BookingState state, int from, int size);
 
+    Collection<BookingDto> getAllBookingsByBookerId(Long bookerId, BookingState state, String after, int size);
+
     Collection<BookingDto> getAllBookingsByItemOwnerId(Long itemOwnerId, BookingState state, int from, int size);
+
+    Collection<BookingDto> getAllBookingsByItemOwnerId(Long itemOwnerId, BookingState state, String after, int size);
 }
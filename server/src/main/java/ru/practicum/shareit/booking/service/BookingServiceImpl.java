@@ -1,66 +1,144 @@
 package ru.practicum.shareit.booking.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingStateCountsDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingHistoryRecord;
+import ru.practicum.shareit.booking.model.BookingInterval;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingView;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingStateCounters;
+import ru.practicum.shareit.concurrency.RetryOnConflict;
 import ru.practicum.shareit.exception.NotAllowedException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemBookingProjectionService;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.pagination.SeekCursor;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.user.storage.UserLookup;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
+@Timed("shareit.service")
 @Service("bookingServiceImpl")
 public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
-    private final UserRepository userRepository;
+    private final UserLookup userLookup;
     private final ItemRepository itemRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookingStateCounters bookingStateCounters;
+    private final ObjectMapper objectMapper;
+    private final ItemBookingProjectionService itemBookingProjectionService;
 
+    // Счетчики должны узнать о бронировании до фиксации его сохранения, поэтому оба идут в одной транзакции
     @Override
+    @Transactional
     public BookingDto addBooking(Long bookerId, BookingDto bookingDto) {
-        LocalDateTime start = bookingDto.getStart();
-        LocalDateTime end = bookingDto.getEnd();
-        if (end.isBefore(start)) {
-            throw new ValidationException("Дата окончания бронирования не может быть раньше даты начала бронирования");
-        } else if (end.isEqual(start)) {
-            throw new ValidationException("Дата окончания бронирования не может быть равной дате начала бронирования");
-        }
+        checkDates(bookingDto.getStart(), bookingDto.getEnd());
 
-        User booker = userRepository.findById(bookerId)
-                .orElseThrow(() -> new NotFoundException("Не найден пользователь с id " + bookerId));
-        Item item = itemRepository.findById(bookingDto.getItemId())
+        User booker = userLookup.getUser(bookerId);
+        Item item = itemRepository.findViewById(bookingDto.getItemId())
+                .map(ItemMapper::mapToItem)
                 .orElseThrow(() -> new NotFoundException("Не найдена вещь с id " + bookingDto.getItemId()));
 
-        if (!item.getAvailable()) {
-            throw new NotAllowedException("Вещь с id " + item.getId() + " недоступна для бронирования");
-        }
-
-        if (item.getOwnerOfItemId().equals(bookerId)) {
-            throw new NotFoundException("Нельзя забронировать собственную вещь");
-        }
+        checkBookable(bookerId, item, bookingDto.getStart(), bookingDto.getEnd());
 
         Booking booking = bookingRepository.save(BookingMapper.mapToBooking(bookingDto, item, booker));
+        bookingStateCounters.addCreated(booking);
+        bookingIntervalIndex.addWaiting(booking);
         return BookingMapper.mapToBookingDto(booking);
     }
 
+    // Пользователь и все вещи пакета загружаются заранее, строки проверяются в памяти, а прошедшие проверку
+    // вставляются пакетно при завершении транзакции. Ошибка в строке не отменяет создание остальных
     @Override
-    public BookingDto approveBooking(Long itemOwnerId, Long bookingId, Boolean approved) {
-        if (!userRepository.existsById(itemOwnerId)) {
-            throw new NotFoundException("Не найден пользователь с id " + itemOwnerId);
+    @Transactional
+    public List<BookingBatchResultDto> addBookings(Long bookerId, List<BookingDto> bookingDtos) {
+        User booker = userLookup.getUser(bookerId);
+        Set<Long> itemIds = bookingDtos.stream()
+                .filter(Objects::nonNull)
+                .map(BookingDto::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Item> itemsById = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        BookingBatchResultDto[] results = new BookingBatchResultDto[bookingDtos.size()];
+        Map<Integer, Booking> bookingsByIndex = new LinkedHashMap<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingDto bookingDto = bookingDtos.get(i);
+            try {
+                checkBatchRow(bookingDto);
+                checkDates(bookingDto.getStart(), bookingDto.getEnd());
+                Item item = Optional.ofNullable(itemsById.get(bookingDto.getItemId()))
+                        .orElseThrow(() -> new NotFoundException("Не найдена вещь с id " + bookingDto.getItemId()));
+                checkBookable(bookerId, item, bookingDto.getStart(), bookingDto.getEnd());
+                bookingsByIndex.put(i, BookingMapper.mapToBooking(bookingDto, item, booker));
+            } catch (NotFoundException e) {
+                results[i] = makeFailedResult(i, HttpStatus.NOT_FOUND, e);
+            } catch (ValidationException | NotAllowedException e) {
+                results[i] = makeFailedResult(i, HttpStatus.BAD_REQUEST, e);
+            }
         }
+
+        bookingRepository.saveAll(bookingsByIndex.values());
+        bookingsByIndex.forEach((index, booking) -> {
+            bookingStateCounters.addCreated(booking);
+            bookingIntervalIndex.addWaiting(booking);
+            results[index] = BookingBatchResultDto.builder()
+                    .index(index)
+                    .status(HttpStatus.CREATED.value())
+                    .booking(BookingMapper.mapToBookingDto(booking))
+                    .build();
+        });
+        return Arrays.asList(results);
+    }
+
+    // Статус проверяется заново при каждой попытке: после проигранного конфликта бронирование может
+    // оказаться уже подтвержденным. Пересечения проверяются под блокировкой вещи, которая держится
+    // до завершения транзакции, поэтому два пересекающихся бронирования не подтвердятся одновременно
+    @Override
+    @RetryOnConflict
+    @Transactional
+    public BookingDto approveBooking(Long itemOwnerId, Long bookingId, Boolean approved) {
+        userLookup.checkExists(itemOwnerId);
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Не найдено бронирование с id " + bookingId));
 
@@ -73,31 +151,155 @@ public class BookingServiceImpl implements BookingService {
             throw new NotAllowedException("Нельзя изменить статус подтвержденного бронирования");
         }
 
+        if (approved) {
+            bookingIntervalIndex.lockItemsUntilCompletion(List.of(booking.getItemIdOfBooking()));
+            checkNoOverlap(booking.getItemIdOfBooking(), booking.getStart(), booking.getEnd(), booking.getId());
+        }
+
+        BookingStatus previousStatus = booking.getStatus();
         booking.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
+        Booking savedBooking = bookingRepository.save(booking);
+        bookingStateCounters.changeStatus(savedBooking, previousStatus);
+
+        if (approved) {
+            bookingIntervalIndex.addApproved(savedBooking);
+            itemBookingProjectionService.onBookingApproved(savedBooking);
+        } else if (previousStatus == BookingStatus.WAITING) {
+            bookingIntervalIndex.removeWaiting(savedBooking);
+        }
 
-        return BookingMapper.mapToBookingDto(bookingRepository.save(booking));
+        return BookingMapper.mapToBookingDto(savedBooking);
     }
 
+    // Владение проверяется одним запросом по всем id, статус меняется одним запросом у бронирований,
+    // которые все еще ожидают подтверждения. Подтверждаемые бронирования проверяются на пересечение
+    // и с уже подтвержденными, и между собой, под блокировкой их вещей до завершения транзакции
     @Override
-    public BookingDto getBookingById(Long userId, Long bookingId) {
-        if (!userRepository.existsById(userId)) {
-            throw new NotFoundException("Не найден пользователь с id " + userId);
+    @Transactional
+    public List<BookingBatchResultDto> approveBookings(Long itemOwnerId, List<Long> bookingIds, Boolean approved) {
+        userLookup.checkExists(itemOwnerId);
+        Map<Long, Booking> bookingsById = bookingRepository.findAllByIdInAndItemOwnerId(bookingIds, itemOwnerId)
+                .stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        if (approved) {
+            bookingIntervalIndex.lockItemsUntilCompletion(bookingsById.values().stream()
+                    .map(Booking::getItemIdOfBooking)
+                    .collect(Collectors.toSet()));
         }
+
+        BookingBatchResultDto[] results = new BookingBatchResultDto[bookingIds.size()];
+        Map<Integer, Booking> bookingsByIndex = new LinkedHashMap<>();
+        Set<Long> processedIds = new HashSet<>();
+        Map<Long, List<BookingInterval>> approvedIntervalsByItemId = new HashMap<>();
+        for (int i = 0; i < bookingIds.size(); i++) {
+            Long bookingId = bookingIds.get(i);
+            try {
+                if (!processedIds.add(bookingId)) {
+                    throw new ValidationException("Бронирование с id " + bookingId + " указано повторно");
+                }
+                Booking booking = Optional.ofNullable(bookingsById.get(bookingId))
+                        .orElseThrow(() -> new NotFoundException("Не найдено бронирование с id " + bookingId +
+                                " у вещей пользователя с id " + itemOwnerId));
+                if (!booking.getStatus().equals(BookingStatus.WAITING)) {
+                    throw new NotAllowedException("Бронирование с id " + bookingId + " не ожидает подтверждения");
+                }
+                if (approved) {
+                    checkNoOverlap(booking.getItemIdOfBooking(), booking.getStart(), booking.getEnd(),
+                            booking.getId());
+                    List<BookingInterval> approvedIntervals = approvedIntervalsByItemId.computeIfAbsent(
+                            booking.getItemIdOfBooking(), id -> new ArrayList<>());
+                    checkNoOverlapInBatch(booking, approvedIntervals);
+                    approvedIntervals.add(new BookingInterval(booking.getId(), booking.getStart(), booking.getEnd()));
+                }
+                bookingsByIndex.put(i, booking);
+            } catch (NotFoundException e) {
+                results[i] = makeFailedResult(i, HttpStatus.NOT_FOUND, e);
+            } catch (ValidationException | NotAllowedException e) {
+                results[i] = makeFailedResult(i, HttpStatus.BAD_REQUEST, e);
+            }
+        }
+
+        if (!bookingsByIndex.isEmpty()) {
+            BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+            List<Long> updatingIds = bookingsByIndex.values().stream()
+                    .map(Booking::getId)
+                    .collect(Collectors.toList());
+            // Бронирования могли изменить между чтением и обновлением, тогда пакет откатывается целиком
+            if (bookingRepository.updateStatusByIdInAndStatus(updatingIds, status, BookingStatus.WAITING) !=
+                    updatingIds.size()) {
+                throw new NotAllowedException("Статус части бронирований изменился во время обработки, " +
+                        "повторите запрос");
+            }
+            // После обновления бронирования отсоединены от контекста, изменение статуса в них не сохраняется повторно
+            bookingsByIndex.forEach((index, booking) -> {
+                booking.setStatus(status);
+                bookingStateCounters.changeStatus(booking, BookingStatus.WAITING);
+                if (approved) {
+                    bookingIntervalIndex.addApproved(booking);
+                    itemBookingProjectionService.onBookingApproved(booking);
+                } else {
+                    bookingIntervalIndex.removeWaiting(booking);
+                }
+                results[index] = BookingBatchResultDto.builder()
+                        .index(index)
+                        .status(HttpStatus.OK.value())
+                        .booking(BookingMapper.mapToBookingDto(booking))
+                        .build();
+            });
+        }
+        return Arrays.asList(results);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingDto getBookingById(Long userId, Long bookingId) {
+        userLookup.checkExists(userId);
         Booking booking = bookingRepository.findByIdAndBookerIdOrItemOwnerId(bookingId, userId, userId)
                 .orElseThrow(() -> new NotFoundException("Не найдено бронирование с id " + bookingId));
         return BookingMapper.mapToBookingDto(booking);
     }
 
     @Override
-    public Collection<BookingDto> getAllBookingsByBookerId(Long bookerId, BookingState state, int from, int size) {
-        if (!userRepository.existsById(bookerId)) {
-            throw new NotFoundException("Не найден пользователь с id " + bookerId);
+    public BookingStateCountsDto getBookingStateCountsByBookerId(Long bookerId) {
+        userLookup.checkExists(bookerId);
+        return BookingMapper.mapToBookingStateCountsDto(bookingStateCounters.getByBookerId(bookerId));
+    }
+
+    @Override
+    public BookingStateCountsDto getBookingStateCountsByItemOwnerId(Long itemOwnerId) {
+        userLookup.checkExists(itemOwnerId);
+        return BookingMapper.mapToBookingStateCountsDto(bookingStateCounters.getByItemOwnerId(itemOwnerId));
+    }
+
+    @Override
+    public void checkItemOwnerExists(Long itemOwnerId) {
+        userLookup.checkExists(itemOwnerId);
+    }
+
+    // Бронирования пишутся в формате NDJSON по мере чтения из БД, поэтому память не зависит от их числа.
+    // Строки выгрузки не попадают в контекст сохранения, так как это не сущности
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAllBookingsByItemOwnerId(Long itemOwnerId, OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(BookingExportDto.class);
+        try (Stream<BookingHistoryRecord> records = bookingRepository.streamAllByItemOwnerId(itemOwnerId)) {
+            Iterator<BookingHistoryRecord> iterator = records.iterator();
+            while (iterator.hasNext()) {
+                outputStream.write(writer.writeValueAsBytes(BookingMapper.mapToBookingExportDto(iterator.next())));
+                outputStream.write('\n');
+            }
         }
+        outputStream.flush();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<BookingDto> getAllBookingsByBookerId(Long bookerId, BookingState state, int from, int size) {
+        userLookup.checkExists(bookerId);
 
-        Collection<Booking> bookings;
+        Collection<BookingView> bookings;
         int page = from > 0 ? from / size : 0;
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by("start").descending());
-        PageRequest nativePageRequest = PageRequest.of(page, size, Sort.by("start_date").descending());
         LocalDateTime currentDate = LocalDateTime.now();
 
         switch (state) {
@@ -106,13 +308,13 @@ public class BookingServiceImpl implements BookingService {
                 break;
             case CURRENT:
                 bookings = bookingRepository.findCurrentBookingsByBookerId(bookerId, currentDate, currentDate,
-                        nativePageRequest);
+                        pageRequest);
                 break;
             case PAST:
-                bookings = bookingRepository.findPastBookingsByBookerId(bookerId, currentDate, nativePageRequest);
+                bookings = bookingRepository.findPastBookingsByBookerId(bookerId, currentDate, pageRequest);
                 break;
             case FUTURE:
-                bookings = bookingRepository.findFutureBookingsByBookerId(bookerId, currentDate, nativePageRequest);
+                bookings = bookingRepository.findFutureBookingsByBookerId(bookerId, currentDate, pageRequest);
                 break;
             case WAITING:
                 bookings = bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(bookerId,
@@ -125,19 +327,58 @@ public class BookingServiceImpl implements BookingService {
             default:
                 bookings = new ArrayList<>();
         }
-        return BookingMapper.mapToBookingDto(bookings);
+        return BookingMapper.mapToBookingDtoFromViews(bookings);
     }
 
     @Override
-    public Collection<BookingDto> getAllBookingsByItemOwnerId(Long itemOwnerId, BookingState state, int from, int size) {
-        if (!userRepository.existsById(itemOwnerId)) {
-            throw new NotFoundException("Не найден пользователь с id " + itemOwnerId);
+    @Transactional(readOnly = true)
+    public Collection<BookingDto> getAllBookingsByBookerId(Long bookerId, BookingState state, String after, int size) {
+        userLookup.checkExists(bookerId);
+
+        Collection<BookingView> bookings;
+        SeekCursor cursor = SeekCursor.parse(after);
+        PageRequest pageRequest = PageRequest.ofSize(size);
+        LocalDateTime currentDate = LocalDateTime.now();
+
+        switch (state) {
+            case ALL:
+                bookings = bookingRepository.findAllByBookerIdAfter(bookerId, cursor.getDate(), cursor.getId(),
+                        pageRequest);
+                break;
+            case CURRENT:
+                bookings = bookingRepository.findCurrentBookingsByBookerIdAfter(bookerId, currentDate,
+                        cursor.getDate(), cursor.getId(), pageRequest);
+                break;
+            case PAST:
+                bookings = bookingRepository.findPastBookingsByBookerIdAfter(bookerId, currentDate,
+                        cursor.getDate(), cursor.getId(), pageRequest);
+                break;
+            case FUTURE:
+                bookings = bookingRepository.findFutureBookingsByBookerIdAfter(bookerId, currentDate,
+                        cursor.getDate(), cursor.getId(), pageRequest);
+                break;
+            case WAITING:
+                bookings = bookingRepository.findAllByBookerIdAndStatusAfter(bookerId, BookingStatus.WAITING,
+                        cursor.getDate(), cursor.getId(), pageRequest);
+                break;
+            case REJECTED:
+                bookings = bookingRepository.findAllByBookerIdAndStatusAfter(bookerId, BookingStatus.REJECTED,
+                        cursor.getDate(), cursor.getId(), pageRequest);
+                break;
+            default:
+                bookings = new ArrayList<>();
         }
+        return BookingMapper.mapToBookingDtoFromViews(bookings);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<BookingDto> getAllBookingsByItemOwnerId(Long itemOwnerId, BookingState state, int from, int size) {
+        userLookup.checkExists(itemOwnerId);
 
-        Collection<Booking> bookings;
+        Collection<BookingView> bookings;
         int page = from > 0 ? from / size : 0;
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by("start").descending());
-        PageRequest nativePageRequest = PageRequest.of(page, size, Sort.by("start_date").descending());
         LocalDateTime currentDate = LocalDateTime.now();
 
         switch (state) {
@@ -146,14 +387,14 @@ public class BookingServiceImpl implements BookingService {
                 break;
             case CURRENT:
                 bookings = bookingRepository.findCurrentBookingsByItemOwnerId(itemOwnerId, currentDate, currentDate,
-                        nativePageRequest);
+                        pageRequest);
                 break;
             case PAST:
-                bookings = bookingRepository.findPastBookingsByItemOwnerId(itemOwnerId, currentDate, nativePageRequest);
+                bookings = bookingRepository.findPastBookingsByItemOwnerId(itemOwnerId, currentDate, pageRequest);
                 break;
             case FUTURE:
                 bookings = bookingRepository.findFutureBookingsByItemOwnerId(itemOwnerId, currentDate,
-                        nativePageRequest);
+                        pageRequest);
                 break;
             case WAITING:
                 bookings = bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(itemOwnerId,
@@ -166,6 +407,111 @@ public class BookingServiceImpl implements BookingService {
             default:
                 bookings = new ArrayList<>();
         }
-        return BookingMapper.mapToBookingDto(bookings);
+        return BookingMapper.mapToBookingDtoFromViews(bookings);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<BookingDto> getAllBookingsByItemOwnerId(Long itemOwnerId, BookingState state, String after,
+                                                              int size) {
+        userLookup.checkExists(itemOwnerId);
+
+        Collection<BookingView> bookings;
+        SeekCursor cursor = SeekCursor.parse(after);
+        PageRequest pageRequest = PageRequest.ofSize(size);
+        LocalDateTime currentDate = LocalDateTime.now();
+
+        switch (state) {
+            case ALL:
+                bookings = bookingRepository.findAllByItemOwnerIdAfter(itemOwnerId, cursor.getDate(), cursor.getId(),
+                        pageRequest);
+                break;
+            case CURRENT:
+                bookings = bookingRepository.findCurrentBookingsByItemOwnerIdAfter(itemOwnerId, currentDate,
+                        cursor.getDate(), cursor.getId(), pageRequest);
+                break;
+            case PAST:
+                bookings = bookingRepository.findPastBookingsByItemOwnerIdAfter(itemOwnerId, currentDate,
+                        cursor.getDate(), cursor.getId(), pageRequest);
+                break;
+            case FUTURE:
+                bookings = bookingRepository.findFutureBookingsByItemOwnerIdAfter(itemOwnerId, currentDate,
+                        cursor.getDate(), cursor.getId(), pageRequest);
+                break;
+            case WAITING:
+                bookings = bookingRepository.findAllByItemOwnerIdAndStatusAfter(itemOwnerId, BookingStatus.WAITING,
+                        cursor.getDate(), cursor.getId(), pageRequest);
+                break;
+            case REJECTED:
+                bookings = bookingRepository.findAllByItemOwnerIdAndStatusAfter(itemOwnerId, BookingStatus.REJECTED,
+                        cursor.getDate(), cursor.getId(), pageRequest);
+                break;
+            default:
+                bookings = new ArrayList<>();
+        }
+        return BookingMapper.mapToBookingDtoFromViews(bookings);
+    }
+
+    private void checkDates(LocalDateTime start, LocalDateTime end) {
+        if (end.isBefore(start)) {
+            throw new ValidationException("Дата окончания бронирования не может быть раньше даты начала бронирования");
+        } else if (end.isEqual(start)) {
+            throw new ValidationException("Дата окончания бронирования не может быть равной дате начала бронирования");
+        }
+    }
+
+    // Одиночное бронирование проверяет шлюз, а строки пакета шлюз не проверяет, чтобы ошибка в одной строке
+    // не отклоняла весь пакет
+    private void checkBatchRow(BookingDto bookingDto) {
+        if (bookingDto == null) {
+            throw new ValidationException("Строка пакета не содержит бронирования");
+        }
+        if (bookingDto.getStart() == null || bookingDto.getEnd() == null) {
+            throw new ValidationException("Не указаны даты начала и окончания бронирования");
+        }
+        if (bookingDto.getItemId() == null) {
+            throw new ValidationException("Не указана вещь для бронирования");
+        }
+        if (bookingDto.getStart().isBefore(LocalDateTime.now())) {
+            throw new ValidationException("Дата начала бронирования не может быть в прошлом");
+        }
+    }
+
+    private void checkBookable(Long bookerId, Item item, LocalDateTime start, LocalDateTime end) {
+        if (!item.getAvailable()) {
+            throw new NotAllowedException("Вещь с id " + item.getId() + " недоступна для бронирования");
+        }
+
+        if (item.getOwnerOfItemId().equals(bookerId)) {
+            throw new NotFoundException("Нельзя забронировать собственную вещь");
+        }
+
+        checkNoOverlap(item.getId(), start, end, null);
+    }
+
+    private void checkNoOverlapInBatch(Booking booking, List<BookingInterval> approvedIntervals) {
+        for (BookingInterval interval : approvedIntervals) {
+            if (interval.overlaps(booking.getStart(), booking.getEnd())) {
+                throw new NotAllowedException("Бронирование с id " + booking.getId() +
+                        " пересекается с подтверждаемым в этом же запросе бронированием с id " + interval.getId());
+            }
+        }
+    }
+
+    private BookingBatchResultDto makeFailedResult(int index, HttpStatus status, RuntimeException e) {
+        return BookingBatchResultDto.builder()
+                .index(index)
+                .status(status.value())
+                .error(e.getMessage())
+                .build();
+    }
+
+    private void checkNoOverlap(Long itemId, LocalDateTime start, LocalDateTime end, Long bookingId) {
+        if (bookingIntervalIndex.hasOverlap(itemId, start, end, bookingId)) {
+            LocalDateTime nextFreeSlot = bookingIntervalIndex.findNextFreeSlot(itemId, start,
+                    Duration.between(start, end));
+            throw new NotAllowedException("Вещь с id " + itemId + " уже забронирована на указанный период, " +
+                    "ближайшее свободное время начинается " + nextFreeSlot);
+        }
     }
 }
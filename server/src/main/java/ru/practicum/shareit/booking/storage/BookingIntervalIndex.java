@@ -0,0 +1,424 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.AvailabilityInterval;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingInterval;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.datasource.ReplicaRouting;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Индекс подтвержденных и ожидающих подтверждения бронирований по вещам. Интервалы вещи загружаются из БД
+// при первом обращении, дальше поддерживаются сервисом бронирований. Пересечения проверяются только
+// с подтвержденными бронированиями, ожидающие нужны для календаря занятости вещи
+@RequiredArgsConstructor
+@Component
+public class BookingIntervalIndex {
+    private static final int ITEM_LOCK_STRIPES = 64;
+    // Интервалы, закончившиеся раньше этого срока, в индексе не хранятся: иначе интервалы вещи копились бы
+    // все время работы сервера. Проверки периодов, начинающихся раньше, читают интервалы из БД
+    private static final Duration RETENTION = Duration.ofDays(30);
+
+    private final BookingRepository bookingRepository;
+    private final Map<Long, ItemIntervals> intervalsByItemId = new ConcurrentHashMap<>();
+    private final Map<Long, ItemIntervals> waitingIntervalsByItemId = new ConcurrentHashMap<>();
+    private final Lock[] itemLocks = Stream.generate(ReentrantLock::new)
+            .limit(ITEM_LOCK_STRIPES)
+            .toArray(Lock[]::new);
+
+    public boolean hasOverlap(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return hasOverlap(itemId, start, end, null);
+    }
+
+    // Интервал самого подтверждаемого бронирования не считается пересечением: если его уже подтвердил
+    // одновременный запрос, повторное подтверждение должно закончиться конфликтом версий, а не отказом
+    public boolean hasOverlap(Long itemId, LocalDateTime start, LocalDateTime end, Long excludedBookingId) {
+        ItemIntervals pending = getPendingApproved(false).get(itemId);
+        return getItemIntervals(itemId, start).hasOverlap(start, end, excludedBookingId)
+                || pending != null && pending.hasOverlap(start, end, excludedBookingId);
+    }
+
+    // Свободное время ищется попеременно среди зафиксированных и еще не зафиксированных подтверждений,
+    // пока оно не окажется свободным в обоих
+    public LocalDateTime findNextFreeSlot(Long itemId, LocalDateTime from, Duration duration) {
+        ItemIntervals intervals = getItemIntervals(itemId, from);
+        ItemIntervals pending = getPendingApproved(false).get(itemId);
+        LocalDateTime candidate = intervals.findNextFreeSlot(from, duration);
+        while (pending != null) {
+            LocalDateTime pendingCandidate = pending.findNextFreeSlot(candidate, duration);
+            if (pendingCandidate.equals(candidate)) {
+                break;
+            }
+            candidate = intervals.findNextFreeSlot(pendingCandidate, duration);
+        }
+        return candidate;
+    }
+
+    // Свободные и занятые отрезки периода [from, to) по порядку. Занятость - объединение подтвержденных
+    // и ожидающих подтверждения бронирований, обрезанное по границам периода
+    public List<AvailabilityInterval> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        List<BookingInterval> busyIntervals = new ArrayList<>();
+        getItemIntervals(itemId, from).collectOverlapping(from, to, busyIntervals);
+        getWaitingIntervals(itemId, from).collectOverlapping(from, to, busyIntervals);
+        // Список состоит из двух отсортированных частей, их слияние при сортировке линейно
+        busyIntervals.sort(Comparator.comparing(BookingInterval::getStart));
+
+        List<AvailabilityInterval> availability = new ArrayList<>();
+        LocalDateTime freeStart = from;
+        LocalDateTime busyStart = null;
+        LocalDateTime busyEnd = null;
+        for (BookingInterval interval : busyIntervals) {
+            LocalDateTime start = interval.getStart().isBefore(from) ? from : interval.getStart();
+            LocalDateTime end = interval.getEnd().isAfter(to) ? to : interval.getEnd();
+            if (busyEnd != null && !start.isAfter(busyEnd)) {
+                if (end.isAfter(busyEnd)) {
+                    busyEnd = end;
+                }
+                continue;
+            }
+            if (busyEnd != null) {
+                availability.add(new AvailabilityInterval(busyStart, busyEnd, false));
+                freeStart = busyEnd;
+            }
+            if (start.isAfter(freeStart)) {
+                availability.add(new AvailabilityInterval(freeStart, start, true));
+            }
+            busyStart = start;
+            busyEnd = end;
+        }
+        if (busyEnd != null) {
+            availability.add(new AvailabilityInterval(busyStart, busyEnd, false));
+            freeStart = busyEnd;
+        }
+        if (freeStart.isBefore(to)) {
+            availability.add(new AvailabilityInterval(freeStart, to, true));
+        }
+        return availability;
+    }
+
+    // Подтвержденное бронирование попадает в индекс после фиксации транзакции: при откате пакета подтверждений
+    // в индексе не должно остаться интервалов, из-за которых отклонялись бы другие бронирования. До фиксации
+    // подтверждение видно только при проверках в той же транзакции. Если интервалы вещи еще не загружены,
+    // бронирование попадет в индекс при загрузке
+    public void addApproved(Booking booking) {
+        BookingInterval interval = toInterval(booking);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            getPendingApproved(true).computeIfAbsent(booking.getItemIdOfBooking(), itemId -> ItemIntervals.empty())
+                    .add(interval);
+        }
+        afterCommit(() -> {
+            ItemIntervals intervals = intervalsByItemId.get(booking.getItemIdOfBooking());
+            if (intervals != null) {
+                intervals.add(interval);
+                intervals.prune(pruneHorizon());
+            }
+        });
+        removeWaiting(booking);
+    }
+
+    // Ожидающие бронирования меняются после фиксации транзакции: при откате пакета в календаре
+    // не должно остаться несозданных бронирований
+    public void addWaiting(Booking booking) {
+        BookingInterval interval = toInterval(booking);
+        afterCommit(() -> {
+            ItemIntervals intervals = waitingIntervalsByItemId.get(booking.getItemIdOfBooking());
+            if (intervals != null) {
+                intervals.add(interval);
+                intervals.prune(pruneHorizon());
+            }
+        });
+    }
+
+    public void removeWaiting(Booking booking) {
+        BookingInterval interval = toInterval(booking);
+        afterCommit(() -> {
+            ItemIntervals intervals = waitingIntervalsByItemId.get(booking.getItemIdOfBooking());
+            if (intervals != null) {
+                intervals.remove(interval);
+            }
+        });
+    }
+
+    // Проверка пересечений и подтверждение бронирований вещей выполняются под блокировкой вещей до завершения
+    // транзакции. К снятию блокировки подтверждения уже попали в индекс, и следующая проверка их увидит.
+    // Вещи делят фиксированный набор блокировок, блокировки берутся по возрастанию номера, чтобы пакеты
+    // с общими вещами не ждали друг друга по кругу
+    public void lockItemsUntilCompletion(Collection<Long> itemIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка вещей до завершения транзакции вызвана вне транзакции");
+        }
+        int[] stripes = itemIds.stream()
+                .mapToInt(itemId -> Math.floorMod(itemId.hashCode(), ITEM_LOCK_STRIPES))
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int stripe : stripes) {
+            Lock lock = itemLocks[stripe];
+            lock.lock();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lock.unlock();
+                }
+            });
+        }
+    }
+
+    public void evictItem(Long itemId) {
+        intervalsByItemId.remove(itemId);
+        waitingIntervalsByItemId.remove(itemId);
+    }
+
+    public void evictAll() {
+        intervalsByItemId.clear();
+        waitingIntervalsByItemId.clear();
+    }
+
+    private ItemIntervals getItemIntervals(Long itemId, LocalDateTime from) {
+        return getIntervals(intervalsByItemId, itemId, BookingStatus.APPROVED, from);
+    }
+
+    private ItemIntervals getWaitingIntervals(Long itemId, LocalDateTime from) {
+        return getIntervals(waitingIntervalsByItemId, itemId, BookingStatus.WAITING, from);
+    }
+
+    // Пустые интервалы вещи попадают в индекс до запроса к БД, а загружаются под их собственной блокировкой.
+    // Изменение, пришедшее во время загрузки, ждет ее окончания и применяется к загруженным интервалам, поэтому
+    // не теряется, а изменение, которое загрузка уже прочитала из БД, применяется повторно без последствий.
+    // Запрос к БД выполняется вне computeIfAbsent: блокировка корзины ConcurrentHashMap основана на synchronized
+    // и закрепила бы виртуальный поток за потоком-носителем на время запроса.
+    // Если период начинается раньше отброшенных интервалов, для него из БД читаются интервалы,
+    // которые заканчиваются после его начала, а индекс не меняется
+    private ItemIntervals getIntervals(Map<Long, ItemIntervals> intervalsByItemId, Long itemId,
+                                       BookingStatus status, LocalDateTime from) {
+        ItemIntervals intervals = intervalsByItemId.computeIfAbsent(itemId, id -> new ItemIntervals());
+        LocalDateTime horizon = pruneHorizon();
+        intervals.loadIfAbsent(horizon, () -> loadIntervals(itemId, status, horizon));
+        if (intervals.covers(from)) {
+            return intervals;
+        }
+        return ItemIntervals.loaded(loadIntervals(itemId, status, from), from);
+    }
+
+    private List<BookingInterval> loadIntervals(Long itemId, BookingStatus status, LocalDateTime endAfter) {
+        return ReplicaRouting.readFromPrimary(
+                () -> bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(itemId, status, endAfter));
+    }
+
+    private static LocalDateTime pruneHorizon() {
+        return LocalDateTime.now().minus(RETENTION);
+    }
+
+    // Подтверждения текущей транзакции хранятся в ее ресурсе и отвязываются от потока при ее завершении
+    @SuppressWarnings("unchecked")
+    private Map<Long, ItemIntervals> getPendingApproved(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Map.of();
+        }
+        Map<Long, ItemIntervals> pending =
+                (Map<Long, ItemIntervals>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null && create) {
+            pending = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BookingIntervalIndex.this);
+                }
+            });
+        }
+        return pending != null ? pending : Map.of();
+    }
+
+    private static BookingInterval toInterval(Booking booking) {
+        return new BookingInterval(booking.getId(), booking.getStart(), booking.getEnd());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Блокировка ReentrantLock, а не synchronized: под ней выполняется запрос к БД при загрузке
+    private static class ItemIntervals {
+        private final Lock lock = new ReentrantLock();
+        private final NavigableSet<BookingInterval> intervals = new TreeSet<>(
+                Comparator.comparing(BookingInterval::getStart).thenComparing(BookingInterval::getId));
+        // Самый длинный интервал ограничивает, насколько раньше окна может начинаться пересекающее его бронирование
+        private Duration maxDuration = Duration.ZERO;
+        // До загрузки изменения не применяются: загрузка прочитает их из БД
+        private boolean loaded;
+        // Интервалы, закончившиеся не позже этого момента, отброшены. Без горизонта хранятся все интервалы
+        private LocalDateTime horizon;
+
+        private static ItemIntervals empty() {
+            ItemIntervals intervals = new ItemIntervals();
+            intervals.loaded = true;
+            return intervals;
+        }
+
+        private static ItemIntervals loaded(Collection<BookingInterval> loaded, LocalDateTime horizon) {
+            ItemIntervals intervals = empty();
+            loaded.forEach(intervals::put);
+            intervals.horizon = horizon;
+            return intervals;
+        }
+
+        // Если запрос к БД завершился ошибкой, интервалы остаются незагруженными и загрузятся при следующем обращении
+        private void loadIfAbsent(LocalDateTime horizon, Supplier<Collection<BookingInterval>> loader) {
+            lock.lock();
+            try {
+                if (!loaded) {
+                    loader.get().forEach(this::put);
+                    this.horizon = horizon;
+                    loaded = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Отброшенные интервалы заканчиваются не позже горизонта и пересекаются только с периодами,
+        // которые начинаются раньше него
+        private boolean covers(LocalDateTime from) {
+            lock.lock();
+            try {
+                return horizon == null || !from.isBefore(horizon);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Интервалы упорядочены по началу, поэтому закончившиеся ищутся только среди начавшихся до горизонта
+        private void prune(LocalDateTime newHorizon) {
+            lock.lock();
+            try {
+                if (!loaded || horizon != null && !newHorizon.isAfter(horizon)) {
+                    return;
+                }
+                Iterator<BookingInterval> iterator = intervals.iterator();
+                while (iterator.hasNext()) {
+                    BookingInterval interval = iterator.next();
+                    if (!interval.getStart().isBefore(newHorizon)) {
+                        break;
+                    }
+                    if (!interval.getEnd().isAfter(newHorizon)) {
+                        iterator.remove();
+                    }
+                }
+                horizon = newHorizon;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void add(BookingInterval interval) {
+            lock.lock();
+            try {
+                if (loaded) {
+                    put(interval);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Максимальная длительность не пересчитывается: она остается верхней оценкой
+        private void remove(BookingInterval interval) {
+            lock.lock();
+            try {
+                intervals.remove(interval);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void collectOverlapping(LocalDateTime start, LocalDateTime end, List<BookingInterval> overlapping) {
+            lock.lock();
+            try {
+                for (BookingInterval interval : candidates(start, end)) {
+                    if (interval.overlaps(start, end)) {
+                        overlapping.add(interval);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean hasOverlap(LocalDateTime start, LocalDateTime end, Long excludedBookingId) {
+            lock.lock();
+            try {
+                for (BookingInterval interval : candidates(start, end)) {
+                    if (interval.overlaps(start, end) && !interval.getId().equals(excludedBookingId)) {
+                        return true;
+                    }
+                }
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private LocalDateTime findNextFreeSlot(LocalDateTime from, Duration duration) {
+            lock.lock();
+            try {
+                LocalDateTime candidate = from;
+                for (BookingInterval interval : intervals.tailSet(lowerBound(from), true)) {
+                    if (!interval.getStart().isBefore(candidate.plus(duration))) {
+                        break;
+                    }
+                    if (interval.getEnd().isAfter(candidate)) {
+                        candidate = interval.getEnd();
+                    }
+                }
+                return candidate;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void put(BookingInterval interval) {
+            intervals.add(interval);
+            Duration duration = Duration.between(interval.getStart(), interval.getEnd());
+            if (duration.compareTo(maxDuration) > 0) {
+                maxDuration = duration;
+            }
+        }
+
+        private NavigableSet<BookingInterval> candidates(LocalDateTime start, LocalDateTime end) {
+            return intervals.subSet(lowerBound(start), true, new BookingInterval(Long.MIN_VALUE, end, end), false);
+        }
+
+        private BookingInterval lowerBound(LocalDateTime start) {
+            return new BookingInterval(Long.MIN_VALUE, start.minus(maxDuration), start.minus(maxDuration));
+        }
+    }
+}
@@ -1,139 +1,411 @@
 package ru.practicum.shareit.booking.storage;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingHistoryRecord;
+import ru.practicum.shareit.booking.model.BookingInterval;
+import ru.practicum.shareit.booking.model.BookingSchedule;
+import ru.practicum.shareit.booking.model.BookingStateCounts;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingView;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+// Связи бронирования загружаются лениво. Запросы, результат которых преобразуется в BookingDto, загружают
+// вещь и автора вместе с бронированием, владелец и запрос вещи нужны только по id и не загружаются.
+// Запросы с отбором по владельцу соединяют вещь явно: граф сущности добавил бы к неявному соединению второе.
+// Списки бронирований только читаются, поэтому строятся сразу в BookingView без сущностей и их снимков
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Override
+    Optional<Booking> findById(Long id);
+
     // Бронирование по id с проверкой автора или владельца вещи
-    @Query (value = "select " +
-            "   bk.id, " +
-            "   bk.start_date, " +
-            "   bk.end_date, " +
-            "   bk.booker_id, " +
-            "   bk.item_id, " +
-            "   bk.status " +
-            "from bookings bk " +
-            "   left join items it " +
-            "   on bk.item_id = it.id " +
+    @Query("select bk from Booking as bk " +
+            "join fetch bk.item as it " +
+            "join fetch bk.booker as bkr " +
             "where bk.id = ?1 " +
-            "   and (bk.booker_id = ?2 or it.owner_id = ?3) " +
-            "limit 1", nativeQuery = true)
+            "   and (bkr.id = ?2 or it.owner.id = ?3)")
     Optional<Booking> findByIdAndBookerIdOrItemOwnerId(Long bookingId, Long bookerId, Long ownerId);
 
-    // Все бронирования по автору
-    List<Booking> findAllByBookerIdOrderByStartDesc(Long bookerId, Pageable pageable);
+    // Все бронирования по автору. Условия по внешним ключам записаны явно: производный запрос соединял бы
+    // пользователей через left join и фильтровал по их id, из-за чего бронирования читались бы целиком
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where bk.booker.id = ?1 " +
+            "order by bk.start desc")
+    List<BookingView> findAllByBookerIdOrderByStartDesc(Long bookerId, Pageable pageable);
 
     // Текущие бронирования по автору
-    @Query (value = "select " +
-            "   bk.id, " +
-            "   bk.start_date, " +
-            "   bk.end_date, " +
-            "   bk.booker_id, " +
-            "   bk.item_id, " +
-            "   bk.status " +
-            "from bookings bk " +
-            "where " +
-            "   bk.booker_id = ?1 " +
-            "   and bk.start_date <= ?2 " +
-            "   and bk.end_date >= ?3", nativeQuery = true)
-    List<Booking> findCurrentBookingsByBookerId(Long bookerId, LocalDateTime startDate, LocalDateTime endDate,
-                                                      Pageable pageable);
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where bk.booker.id = ?1 " +
+            "   and bk.start <= ?2 " +
+            "   and bk.end >= ?3")
+    List<BookingView> findCurrentBookingsByBookerId(Long bookerId, LocalDateTime startDate, LocalDateTime endDate,
+                                                Pageable pageable);
 
     // Прошлые бронирования по автору
-    @Query (value = "select " +
-            "   bk.id, " +
-            "   bk.start_date, " +
-            "   bk.end_date, " +
-            "   bk.booker_id, " +
-            "   bk.item_id, " +
-            "   bk.status " +
-            "from bookings bk " +
-            "where " +
-            "   bk.booker_id = ?1 " +
-            "   and bk.end_date < ?2", nativeQuery = true)
-    List<Booking> findPastBookingsByBookerId(Long bookerId, LocalDateTime endDate, Pageable pageable);
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where bk.booker.id = ?1 " +
+            "   and bk.end < ?2")
+    List<BookingView> findPastBookingsByBookerId(Long bookerId, LocalDateTime endDate, Pageable pageable);
 
     // Будущие бронирования по автору
-    @Query (value = "select " +
-            "   bk.id, " +
-            "   bk.start_date, " +
-            "   bk.end_date, " +
-            "   bk.booker_id, " +
-            "   bk.item_id, " +
-            "   bk.status " +
-            "from bookings bk " +
-            "where " +
-            "   bk.booker_id = ?1 " +
-            "   and bk.start_date > ?2", nativeQuery = true)
-    List<Booking> findFutureBookingsByBookerId(Long bookerId, LocalDateTime startDate, Pageable pageable);
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where bk.booker.id = ?1 " +
+            "   and bk.start > ?2")
+    List<BookingView> findFutureBookingsByBookerId(Long bookerId, LocalDateTime startDate, Pageable pageable);
 
     // Бронирования по статусу и автору
-    List<Booking> findAllByBookerIdAndStatusOrderByStartDesc(Long bookerId, BookingStatus status, Pageable pageable);
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where bk.booker.id = ?1 " +
+            "   and bk.status = ?2 " +
+            "order by bk.start desc")
+    List<BookingView> findAllByBookerIdAndStatusOrderByStartDesc(Long bookerId, BookingStatus status,
+                                                                 Pageable pageable);
 
     // Все бронирования по владельцу вещей
-    List<Booking> findAllByItemOwnerIdOrderByStartDesc(Long ownerId, Pageable pageable);
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where it.owner.id = ?1 " +
+            "order by bk.start desc")
+    List<BookingView> findAllByItemOwnerIdOrderByStartDesc(Long ownerId, Pageable pageable);
 
     // Текущие бронирования по владельцу вещей
-    @Query (value = "select " +
-            "   bk.id, " +
-            "   bk.start_date, " +
-            "   bk.end_date, " +
-            "   bk.booker_id, " +
-            "   bk.item_id, " +
-            "   bk.status " +
-            "from bookings bk " +
-            "   left join items it " +
-            "   on bk.item_id = it.id " +
-            "where " +
-            "   it.owner_id = ?1 " +
-            "   and bk.start_date <= ?2 " +
-            "   and bk.end_date >= ?3", nativeQuery = true)
-    List<Booking> findCurrentBookingsByItemOwnerId(Long ownerId, LocalDateTime startDate, LocalDateTime endDate,
-                                                         Pageable pageable);
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where it.owner.id = ?1 " +
+            "   and bk.start <= ?2 " +
+            "   and bk.end >= ?3")
+    List<BookingView> findCurrentBookingsByItemOwnerId(Long ownerId, LocalDateTime startDate, LocalDateTime endDate,
+                                                   Pageable pageable);
 
     // Прошлые бронирования по владельцу вещей
-    @Query (value = "select " +
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where it.owner.id = ?1 " +
+            "   and bk.end < ?2")
+    List<BookingView> findPastBookingsByItemOwnerId(Long ownerId, LocalDateTime endDate, Pageable pageable);
+
+    // Будущие бронирования по владельцу вещей
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where it.owner.id = ?1 " +
+            "   and bk.start > ?2")
+    List<BookingView> findFutureBookingsByItemOwnerId(Long ownerId, LocalDateTime startDate, Pageable pageable);
+
+    // Бронирования по статусу и владельцу вещей
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where it.owner.id = ?1 " +
+            "   and bk.status = ?2 " +
+            "order by bk.start desc")
+    List<BookingView> findAllByItemOwnerIdAndStatusOrderByStartDesc(Long ownerId, BookingStatus status,
+                                                                    Pageable pageable);
+
+    // Все бронирования по автору после курсора
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where bk.booker.id = ?1 " +
+            "   and (bk.start < ?2 or (bk.start = ?2 and bk.id < ?3)) " +
+            "order by bk.start desc, bk.id desc")
+    List<BookingView> findAllByBookerIdAfter(Long bookerId, LocalDateTime afterStart, Long afterId, Pageable pageable);
+
+    // Текущие бронирования по автору после курсора
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where bk.booker.id = ?1 " +
+            "   and bk.start <= ?2 " +
+            "   and bk.end >= ?2 " +
+            "   and (bk.start < ?3 or (bk.start = ?3 and bk.id < ?4)) " +
+            "order by bk.start desc, bk.id desc")
+    List<BookingView> findCurrentBookingsByBookerIdAfter(Long bookerId, LocalDateTime date, LocalDateTime afterStart,
+                                                     Long afterId, Pageable pageable);
+
+    // Прошлые бронирования по автору после курсора
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where bk.booker.id = ?1 " +
+            "   and bk.end < ?2 " +
+            "   and (bk.start < ?3 or (bk.start = ?3 and bk.id < ?4)) " +
+            "order by bk.start desc, bk.id desc")
+    List<BookingView> findPastBookingsByBookerIdAfter(Long bookerId, LocalDateTime date, LocalDateTime afterStart,
+                                                  Long afterId, Pageable pageable);
+
+    // Будущие бронирования по автору после курсора
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where bk.booker.id = ?1 " +
+            "   and bk.start > ?2 " +
+            "   and (bk.start < ?3 or (bk.start = ?3 and bk.id < ?4)) " +
+            "order by bk.start desc, bk.id desc")
+    List<BookingView> findFutureBookingsByBookerIdAfter(Long bookerId, LocalDateTime date, LocalDateTime afterStart,
+                                                    Long afterId, Pageable pageable);
+
+    // Бронирования по статусу и автору после курсора
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where bk.booker.id = ?1 " +
+            "   and bk.status = ?2 " +
+            "   and (bk.start < ?3 or (bk.start = ?3 and bk.id < ?4)) " +
+            "order by bk.start desc, bk.id desc")
+    List<BookingView> findAllByBookerIdAndStatusAfter(Long bookerId, BookingStatus status, LocalDateTime afterStart,
+                                                  Long afterId, Pageable pageable);
+
+    // Все бронирования по владельцу вещей после курсора
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where it.owner.id = ?1 " +
+            "   and (bk.start < ?2 or (bk.start = ?2 and bk.id < ?3)) " +
+            "order by bk.start desc, bk.id desc")
+    List<BookingView> findAllByItemOwnerIdAfter(Long ownerId, LocalDateTime afterStart, Long afterId,
+                                                Pageable pageable);
+
+    // Текущие бронирования по владельцу вещей после курсора
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where it.owner.id = ?1 " +
+            "   and bk.start <= ?2 " +
+            "   and bk.end >= ?2 " +
+            "   and (bk.start < ?3 or (bk.start = ?3 and bk.id < ?4)) " +
+            "order by bk.start desc, bk.id desc")
+    List<BookingView> findCurrentBookingsByItemOwnerIdAfter(Long ownerId, LocalDateTime date, LocalDateTime afterStart,
+                                                        Long afterId, Pageable pageable);
+
+    // Прошлые бронирования по владельцу вещей после курсора
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where it.owner.id = ?1 " +
+            "   and bk.end < ?2 " +
+            "   and (bk.start < ?3 or (bk.start = ?3 and bk.id < ?4)) " +
+            "order by bk.start desc, bk.id desc")
+    List<BookingView> findPastBookingsByItemOwnerIdAfter(Long ownerId, LocalDateTime date, LocalDateTime afterStart,
+                                                     Long afterId, Pageable pageable);
+
+    // Будущие бронирования по владельцу вещей после курсора
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where it.owner.id = ?1 " +
+            "   and bk.start > ?2 " +
+            "   and (bk.start < ?3 or (bk.start = ?3 and bk.id < ?4)) " +
+            "order by bk.start desc, bk.id desc")
+    List<BookingView> findFutureBookingsByItemOwnerIdAfter(Long ownerId, LocalDateTime date, LocalDateTime afterStart,
+                                                       Long afterId, Pageable pageable);
+
+    // Бронирования по статусу и владельцу вещей после курсора
+    @Query("select new ru.practicum.shareit.booking.model.BookingView(bk.id, bk.start, bk.end, bk.status, " +
+            "   it.id, it.name, it.description, it.available, it.request.id, bkr.id, bkr.name, bkr.email) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where it.owner.id = ?1 " +
+            "   and bk.status = ?2 " +
+            "   and (bk.start < ?3 or (bk.start = ?3 and bk.id < ?4)) " +
+            "order by bk.start desc, bk.id desc")
+    List<BookingView> findAllByItemOwnerIdAndStatusAfter(Long ownerId, BookingStatus status, LocalDateTime afterStart,
+                                                     Long afterId, Pageable pageable);
+
+    // Бронирования из списка, относящиеся к вещам владельца, вместе с вещами и авторами
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("select bk from Booking as bk " +
+            "join fetch bk.item as it " +
+            "join fetch it.owner as ow " +
+            "join fetch bk.booker " +
+            "left join fetch it.request as r " +
+            "left join fetch r.requestor " +
+            "where bk.id in ?1 " +
+            "   and ow.id = ?2")
+    List<Booking> findAllByIdInAndItemOwnerId(Collection<Long> bookingIds, Long ownerId);
+
+    // Меняет статус только тех бронирований, которые еще находятся в исходном статусе. Массовое обновление
+    // идет в обход Hibernate, поэтому версия увеличивается явно
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking as bk " +
+            "set bk.status = ?2, " +
+            "   bk.version = bk.version + 1 " +
+            "where bk.id in ?1 " +
+            "   and bk.status = ?3")
+    int updateStatusByIdInAndStatus(Collection<Long> bookingIds, BookingStatus status, BookingStatus currentStatus);
+
+    // Существует завершенное бронирование вещи
+    @Query("select case when count(bk) > 0 then true else false end " +
+            "from Booking as bk " +
+            "where bk.item.id = ?1 " +
+            "   and bk.booker.id = ?2 " +
+            "   and bk.status = ?3 " +
+            "   and bk.end < ?4")
+    boolean existsByItemIdAndBookerIdAndStatusAndEndLessThan(Long itemId, Long bookerId, BookingStatus status,
+                                                             LocalDateTime endDate);
+
+    // Последнее начавшееся подтвержденное бронирование вещи
+    @Query(value = "select " +
             "   bk.id, " +
             "   bk.start_date, " +
             "   bk.end_date, " +
             "   bk.booker_id, " +
             "   bk.item_id, " +
-            "   bk.status " +
+            "   bk.status, " +
+            "   bk.version " +
             "from bookings bk " +
-            "   left join items it " +
-            "   on bk.item_id = it.id " +
             "where " +
-            "   it.owner_id = ?1 " +
-            "   and bk.end_date < ?2", nativeQuery = true)
-    List<Booking> findPastBookingsByItemOwnerId(Long ownerId, LocalDateTime endDate, Pageable pageable);
+            "   bk.item_id = ?1 " +
+            "   and bk.status = 'APPROVED' " +
+            "   and bk.start_date < ?2 " +
+            "order by bk.start_date desc " +
+            "limit 1", nativeQuery = true)
+    Optional<Booking> findLastApprovedBookingByItemId(Long itemId, LocalDateTime date);
 
-    // Будущие бронирования по владельцу вещей
-    @Query (value = "select " +
+    // Ближайшее будущее подтвержденное бронирование вещи
+    @Query(value = "select " +
             "   bk.id, " +
             "   bk.start_date, " +
             "   bk.end_date, " +
             "   bk.booker_id, " +
             "   bk.item_id, " +
-            "   bk.status " +
+            "   bk.status, " +
+            "   bk.version " +
             "from bookings bk " +
-            "   left join items it " +
-            "   on bk.item_id = it.id " +
             "where " +
-            "   it.owner_id = ?1 " +
-            "   and bk.start_date > ?2", nativeQuery = true)
-    List<Booking> findFutureBookingsByItemOwnerId(Long ownerId, LocalDateTime startDate, Pageable pageable);
+            "   bk.item_id = ?1 " +
+            "   and bk.status = 'APPROVED' " +
+            "   and bk.start_date > ?2 " +
+            "order by bk.start_date " +
+            "limit 1", nativeQuery = true)
+    Optional<Booking> findNextApprovedBookingByItemId(Long itemId, LocalDateTime date);
 
-    // Бронирования по статусу и владельцу вещей
-    List<Booking> findAllByItemOwnerIdAndStatusOrderByStartDesc(Long ownerId, BookingStatus status, Pageable pageable);
+    // Число бронирований автора по состояниям, текущие, прошлые и будущие считаются на указанный момент
+    @Query("select new ru.practicum.shareit.booking.model.BookingStateCounts(" +
+            "   count(bk), " +
+            "   sum(case when bk.start <= ?2 and bk.end >= ?2 then 1 else 0 end), " +
+            "   sum(case when bk.end < ?2 then 1 else 0 end), " +
+            "   sum(case when bk.start > ?2 then 1 else 0 end), " +
+            "   sum(case when bk.status = ?3 then 1 else 0 end), " +
+            "   sum(case when bk.status = ?4 then 1 else 0 end)) " +
+            "from Booking as bk " +
+            "where bk.booker.id = ?1")
+    BookingStateCounts countStatesByBookerId(Long bookerId, LocalDateTime date, BookingStatus waiting,
+                                             BookingStatus rejected);
 
-    // Существует завершенное бронирование вещи
-    boolean existsByItemIdAndBookerIdAndStatusAndEndLessThan(Long itemId, Long bookerId, BookingStatus status,
-                                                             LocalDateTime endDate);
+    // Число бронирований вещей владельца по состояниям, текущие, прошлые и будущие считаются на указанный момент
+    @Query("select new ru.practicum.shareit.booking.model.BookingStateCounts(" +
+            "   count(bk), " +
+            "   sum(case when bk.start <= ?2 and bk.end >= ?2 then 1 else 0 end), " +
+            "   sum(case when bk.end < ?2 then 1 else 0 end), " +
+            "   sum(case when bk.start > ?2 then 1 else 0 end), " +
+            "   sum(case when bk.status = ?3 then 1 else 0 end), " +
+            "   sum(case when bk.status = ?4 then 1 else 0 end)) " +
+            "from Booking as bk " +
+            "where bk.item.owner.id = ?1")
+    BookingStateCounts countStatesByItemOwnerId(Long ownerId, LocalDateTime date, BookingStatus waiting,
+                                                BookingStatus rejected);
+
+    // Бронирования, начавшиеся в промежутке (from, to]
+    @Query("select new ru.practicum.shareit.booking.model.BookingSchedule(bk.id, bk.booker.id, it.owner.id, " +
+            "   bk.start, bk.end) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "where bk.start > ?1 " +
+            "   and bk.start <= ?2")
+    List<BookingSchedule> findSchedulesByStartBetween(LocalDateTime from, LocalDateTime to);
+
+    // Бронирования, закончившиеся в промежутке [from, to)
+    @Query("select new ru.practicum.shareit.booking.model.BookingSchedule(bk.id, bk.booker.id, it.owner.id, " +
+            "   bk.start, bk.end) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "where bk.end >= ?1 " +
+            "   and bk.end < ?2")
+    List<BookingSchedule> findSchedulesByEndBetween(LocalDateTime from, LocalDateTime to);
+
+    // Все бронирования вещей владельца для выгрузки. Строки читаются из БД порциями по мере обработки потока,
+    // а не загружаются целиком, поток должен закрываться внутри транзакции
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new ru.practicum.shareit.booking.model.BookingHistoryRecord(bk.id, bk.start, bk.end, " +
+            "   bk.status, it.id, it.name, bkr.id, bkr.name) " +
+            "from Booking as bk " +
+            "join bk.item as it " +
+            "join bk.booker as bkr " +
+            "where it.owner.id = ?1 " +
+            "order by bk.start desc, bk.id desc")
+    Stream<BookingHistoryRecord> streamAllByItemOwnerId(Long ownerId);
+
+    // Интервалы бронирований вещи по статусу, которые заканчиваются после указанного момента
+    @Query("select new ru.practicum.shareit.booking.model.BookingInterval(bk.id, bk.start, bk.end) " +
+            "from Booking as bk " +
+            "where bk.item.id = ?1 " +
+            "   and bk.status = ?2 " +
+            "   and bk.end > ?3")
+    List<BookingInterval> findIntervalsByItemIdAndStatusAndEndAfter(Long itemId, BookingStatus status,
+                                                                    LocalDateTime date);
 }
@@ -0,0 +1,284 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingSchedule;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStateCounts;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.datasource.ReplicaRouting;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Счетчики бронирований по состояниям для авторов и владельцев вещей. Счетчики пользователя загружаются из БД
+// при первом обращении, дальше поддерживаются сервисом бронирований. Текущие, прошлые и будущие бронирования
+// считаются на момент последнего переноса, периодическая задача переносит между ними бронирования, которые
+// с тех пор начались или закончились
+@RequiredArgsConstructor
+@Component
+@Slf4j
+public class BookingStateCounters {
+    private final BookingRepository bookingRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, StateCounters> countersByBookerId = new ConcurrentHashMap<>();
+    private final Map<Long, StateCounters> countersByOwnerId = new ConcurrentHashMap<>();
+    private volatile LocalDateTime shiftedAt = LocalDateTime.now();
+
+    public BookingStateCounts getByBookerId(Long bookerId) {
+        return getCounts(countersByBookerId, bookerId, (id, date) -> bookingRepository
+                .countStatesByBookerId(id, date, BookingStatus.WAITING, BookingStatus.REJECTED));
+    }
+
+    public BookingStateCounts getByItemOwnerId(Long ownerId) {
+        return getCounts(countersByOwnerId, ownerId, (id, date) -> bookingRepository
+                .countStatesByItemOwnerId(id, date, BookingStatus.WAITING, BookingStatus.REJECTED));
+    }
+
+    public void addCreated(Booking booking) {
+        change(booking.getBooker().getId(), booking.getOwnerIdOfBooking(), counters -> counters.add(
+                timeState(booking.getStart(), booking.getEnd(), shiftedAt), statusState(booking.getStatus())));
+    }
+
+    public void changeStatus(Booking booking, BookingStatus previousStatus) {
+        change(booking.getBooker().getId(), booking.getOwnerIdOfBooking(), counters -> counters.move(
+                statusState(previousStatus), statusState(booking.getStatus())));
+    }
+
+    // Счетчики не удаляются, а выгружаются: они хранят число незавершенных изменений
+    public void evictAll() {
+        countersByBookerId.values().forEach(StateCounters::unload);
+        countersByOwnerId.values().forEach(StateCounters::unload);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking-state-counters.shift-delay-ms:60000}")
+    public void shift() {
+        shiftTo(LocalDateTime.now());
+    }
+
+    // Поиск и перенос идут под блокировкой записи: бронирование, созданное в это время, иначе было бы посчитано
+    // на момент прошлого переноса и не попало бы ни в этот перенос, ни в следующий. Перенос может найти
+    // бронирование, транзакция которого зафиксирована, но еще не применила изменение к счетчикам. Такие
+    // счетчики не переносятся, а становятся неточными и перечитываются после завершения изменений
+    void shiftTo(LocalDateTime date) {
+        lock.writeLock().lock();
+        try {
+            LocalDateTime from = shiftedAt;
+            Map<Long, BookingSchedule> schedules = new LinkedHashMap<>();
+            bookingRepository.findSchedulesByStartBetween(from, date).forEach(s -> schedules.put(s.getId(), s));
+            bookingRepository.findSchedulesByEndBetween(from, date).forEach(s -> schedules.put(s.getId(), s));
+
+            for (BookingSchedule schedule : schedules.values()) {
+                BookingState fromState = timeState(schedule.getStart(), schedule.getEnd(), from);
+                BookingState toState = timeState(schedule.getStart(), schedule.getEnd(), date);
+                forEachLoaded(schedule.getBookerId(), schedule.getOwnerId(),
+                        counters -> counters.shift(fromState, toState));
+            }
+            shiftedAt = date;
+            log.debug("Shifted {} bookings between time states", schedules.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Счетчики пользователя попадают в таблицу до запроса к БД, а загружаются под их собственной блокировкой.
+    // Запрос к БД выполняется вне computeIfAbsent: блокировка корзины ConcurrentHashMap основана на synchronized
+    // и закрепила бы виртуальный поток за потоком-носителем на время запроса
+    private BookingStateCounts getCounts(Map<Long, StateCounters> countersByUserId, Long userId,
+                                         BiFunction<Long, LocalDateTime, BookingStateCounts> loader) {
+        return read(() -> countersByUserId.computeIfAbsent(userId, id -> new StateCounters())
+                .getOrLoad(() -> ReplicaRouting.readFromPrimary(() -> loader.apply(userId, shiftedAt))));
+    }
+
+    // Изменение в транзакции отмечается в счетчиках до фиксации, а применяется после ее завершения, когда
+    // бронирование уже видно задаче переноса. Вне транзакции изменение уже зафиксировано и применяется сразу
+    private void change(Long bookerId, Long ownerId, Consumer<StateCounters> change) {
+        List<StateCounters> affected = List.of(
+                countersByBookerId.computeIfAbsent(bookerId, id -> new StateCounters()),
+                countersByOwnerId.computeIfAbsent(ownerId, id -> new StateCounters()));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            read(() -> affected.forEach(counters -> counters.apply(change)));
+            return;
+        }
+        affected.forEach(StateCounters::begin);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                read(() -> affected.forEach(counters -> counters.complete(change, status)));
+            }
+        });
+    }
+
+    // Счетчики, которые еще не загружены, не меняются: бронирование попадет в них при загрузке
+    private void forEachLoaded(Long bookerId, Long ownerId, Consumer<StateCounters> action) {
+        StateCounters bookerCounters = countersByBookerId.get(bookerId);
+        if (bookerCounters != null) {
+            bookerCounters.apply(action);
+        }
+        StateCounters ownerCounters = countersByOwnerId.get(ownerId);
+        if (ownerCounters != null) {
+            ownerCounters.apply(action);
+        }
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void read(Runnable reader) {
+        lock.readLock().lock();
+        try {
+            reader.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static BookingState timeState(LocalDateTime start, LocalDateTime end, LocalDateTime date) {
+        if (start.isAfter(date)) {
+            return BookingState.FUTURE;
+        } else if (end.isBefore(date)) {
+            return BookingState.PAST;
+        }
+        return BookingState.CURRENT;
+    }
+
+    private static BookingState statusState(BookingStatus status) {
+        if (status == BookingStatus.WAITING) {
+            return BookingState.WAITING;
+        } else if (status == BookingStatus.REJECTED) {
+            return BookingState.REJECTED;
+        }
+        return null;
+    }
+
+    // Загрузка не знает, видела ли она изменения незавершенных транзакций, а приращения нельзя применять
+    // повторно. Поэтому счетчики, загруженные при незавершенных изменениях, считаются неточными и выгружаются,
+    // когда эти изменения завершатся: следующее чтение загрузит их заново. Блокировка ReentrantLock,
+    // а не synchronized: под ней выполняется запрос к БД при загрузке
+    private static class StateCounters {
+        private final Lock lock = new ReentrantLock();
+        private Map<BookingState, Long> counts;
+        private int changesInFlight;
+        private boolean uncertain;
+
+        private BookingStateCounts getOrLoad(Supplier<BookingStateCounts> loader) {
+            lock.lock();
+            try {
+                if (counts == null) {
+                    BookingStateCounts loaded = loader.get();
+                    counts = new EnumMap<>(BookingState.class);
+                    counts.put(BookingState.ALL, loaded.getAll());
+                    counts.put(BookingState.CURRENT, loaded.getCurrent());
+                    counts.put(BookingState.PAST, loaded.getPast());
+                    counts.put(BookingState.FUTURE, loaded.getFuture());
+                    counts.put(BookingState.WAITING, loaded.getWaiting());
+                    counts.put(BookingState.REJECTED, loaded.getRejected());
+                    uncertain = changesInFlight > 0;
+                }
+                return new BookingStateCounts(counts.get(BookingState.ALL), counts.get(BookingState.CURRENT),
+                        counts.get(BookingState.PAST), counts.get(BookingState.FUTURE),
+                        counts.get(BookingState.WAITING), counts.get(BookingState.REJECTED));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void begin() {
+            lock.lock();
+            try {
+                changesInFlight++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // При неизвестном исходе транзакции счетчики тоже становятся неточными
+        private void complete(Consumer<StateCounters> change, int status) {
+            lock.lock();
+            try {
+                if (counts != null && status == TransactionSynchronization.STATUS_COMMITTED) {
+                    change.accept(this);
+                } else if (status == TransactionSynchronization.STATUS_UNKNOWN) {
+                    uncertain = true;
+                }
+                changesInFlight--;
+                if (changesInFlight == 0 && uncertain) {
+                    counts = null;
+                    uncertain = false;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void apply(Consumer<StateCounters> change) {
+            lock.lock();
+            try {
+                if (counts != null) {
+                    change.accept(this);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void shift(BookingState fromState, BookingState toState) {
+            if (changesInFlight > 0) {
+                uncertain = true;
+            } else {
+                move(fromState, toState);
+            }
+        }
+
+        private void unload() {
+            lock.lock();
+            try {
+                counts = null;
+                uncertain = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void add(BookingState timeState, BookingState statusState) {
+            increment(BookingState.ALL, 1);
+            increment(timeState, 1);
+            increment(statusState, 1);
+        }
+
+        private void move(BookingState fromState, BookingState toState) {
+            if (fromState != toState) {
+                increment(fromState, -1);
+                increment(toState, 1);
+            }
+        }
+
+        private void increment(BookingState state, long delta) {
+            if (state != null) {
+                counts.merge(state, delta, Long::sum);
+            }
+        }
+    }
+}
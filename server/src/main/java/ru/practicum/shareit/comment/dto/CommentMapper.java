@@ -1,6 +1,7 @@
 package ru.practicum.shareit.comment.dto;
 
 import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.model.ItemComment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -28,6 +29,15 @@ public class CommentMapper {
                 .build();
     }
 
+    public static CommentDto mapToCommentDto(ItemComment comment) {
+        return CommentDto.builder()
+                .id(comment.getId())
+                .text(comment.getText())
+                .authorName(Optional.ofNullable(comment.getAuthorName()).orElse(""))
+                .created(comment.getCreated())
+                .build();
+    }
+
     public static Collection<CommentDto> mapToCommentDto(Collection<Comment> comments) {
         return comments.stream().map(CommentMapper::mapToCommentDto).collect(Collectors.toList());
     }
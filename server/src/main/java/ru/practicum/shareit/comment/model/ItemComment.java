@@ -0,0 +1,16 @@
+package ru.practicum.shareit.comment.model;
+
+import java.time.LocalDateTime;
+
+// Отзыв вместе с id вещи и именем автора без загрузки связанных сущностей
+public interface ItemComment {
+    Long getItemId();
+
+    Long getId();
+
+    String getText();
+
+    String getAuthorName();
+
+    LocalDateTime getCreated();
+}
@@ -1,12 +1,45 @@
 package ru.practicum.shareit.comment.storage;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.model.ItemComment;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    Collection<Comment> findAllByItemId(Long itemId);
+    // Отзывы к вещам от новых к старым
+    @Query("select " +
+            "   c.item.id as itemId, " +
+            "   c.id as id, " +
+            "   c.text as text, " +
+            "   c.author.name as authorName, " +
+            "   c.created as created " +
+            "from Comment as c " +
+            "where c.item.id in ?1 " +
+            "order by c.created desc, c.id desc")
+    List<ItemComment> findItemCommentsByItemIdIn(Collection<Long> itemIds);
 
-    Collection<Comment> findAllByItemIdIn(Collection<Long> itemIds);
+    // Не более limit последних отзывов к каждой вещи
+    @Query(value = "select " +
+            "   rc.item_id as itemId, " +
+            "   rc.id as id, " +
+            "   rc.text as text, " +
+            "   rc.author_name as authorName, " +
+            "   rc.create_date as created " +
+            "from (select " +
+            "           c.item_id, " +
+            "           c.id, " +
+            "           c.text, " +
+            "           u.name as author_name, " +
+            "           c.create_date, " +
+            "           row_number() over (partition by c.item_id order by c.create_date desc, c.id desc) as rn " +
+            "       from comments as c " +
+            "           join users as u " +
+            "           on c.author_id = u.id " +
+            "       where c.item_id in ?1) as rc " +
+            "where rc.rn <= ?2 " +
+            "order by rc.create_date desc, rc.id desc", nativeQuery = true)
+    List<ItemComment> findLatestItemCommentsByItemIdIn(Collection<Long> itemIds, int limit);
 }
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.concurrency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Повторы методов, помеченных @RetryOnConflict. Аспект выполняется раньше транзакционного: каждая попытка
+// идет в своей транзакции и перечитывает строки заново. Пауза перед повтором растет с номером попытки
+// и выбирается случайно, чтобы одновременные запросы не сталкивались снова. Последний конфликт
+// отдается вызывающему, обработчик ошибок отвечает на него 409
+@Slf4j
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Component
+public class ConflictRetryAspect {
+    @Value("${shareit.conflict-retry.max-attempts:3}")
+    private int maxAttempts;
+    @Value("${shareit.conflict-retry.backoff:20ms}")
+    private Duration backoff;
+
+    @Around("@annotation(ru.practicum.shareit.concurrency.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Конфликт одновременных изменений в {} после {} попыток",
+                            joinPoint.getSignature().toShortString(), attempt);
+                    throw e;
+                }
+                log.debug("Конфликт одновременных изменений в {}, попытка {}",
+                        joinPoint.getSignature().toShortString(), attempt);
+                pause(attempt, e);
+            }
+        }
+    }
+
+    private void pause(int attempt, OptimisticLockingFailureException conflict) {
+        long maxPause = backoff.toMillis() * attempt;
+        if (maxPause <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxPause + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Метод сервиса повторяется целиком, если его изменение проиграло одновременному изменению той же строки.
+// Метод не должен менять состояние вне БД до сохранения, иначе повтор применит такие изменения дважды
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Решает, можно ли читать с реплики. Реплика используется только транзакциями только для чтения внутри
+// запроса на чтение. Запросы, меняющие данные, и работа вне веб-запросов идут в основную БД целиком, поэтому
+// проверки перед записью не видят отставания реплики. Пользователь, недавно менявший данные, читает
+// из основной БД, пока не истечет окно чтения своих изменений
+public class ReplicaRouting {
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final ThreadLocal<Boolean> replicaAllowed = new ThreadLocal<>();
+    private final Cache<Long, Boolean> recentWriters;
+    private final boolean readYourWrites;
+
+    public ReplicaRouting(Duration readYourWritesWindow) {
+        this.readYourWrites = !readYourWritesWindow.isZero();
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+    }
+
+    // Данные, которые после загрузки поддерживаются в памяти по событиям, читаются из основной БД: изменения,
+    // которых еще нет на реплике, иначе потерялись бы до следующей загрузки. Без реплик ничего не меняет
+    public static <T> T readFromPrimary(Supplier<T> reader) {
+        if (PRIMARY_REQUIRED.get() != null) {
+            return reader.get();
+        }
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return reader.get();
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    public boolean isReplicaAllowed() {
+        return Boolean.TRUE.equals(replicaAllowed.get())
+                && PRIMARY_REQUIRED.get() == null
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    void startRequest(boolean readOnlyRequest, Long userId) {
+        if (!readOnlyRequest) {
+            recordWrite(userId);
+        }
+        replicaAllowed.set(readOnlyRequest && (userId == null || recentWriters.getIfPresent(userId) == null));
+    }
+
+    // Окно отсчитывается и от начала, и от конца изменения: изменение могло занять больше времени, чем окно
+    void finishRequest(boolean readOnlyRequest, Long userId) {
+        replicaAllowed.remove();
+        if (!readOnlyRequest) {
+            recordWrite(userId);
+        }
+    }
+
+    private void recordWrite(Long userId) {
+        if (readYourWrites && userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Оборачивается источник, которым пользуется JPA: с репликами это маршрутизирующий источник, а не пулы
+@RequiredArgsConstructor
+@Configuration
+public class SqlMonitoringConfig implements WebMvcConfigurer {
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${shareit.sql.statement-budget:0}")
+    private int statementBudget;
+
+    // Постпроцессор создается раньше, чем подставляются значения в @Value, поэтому порог читается из окружения
+    @Bean
+    public static BeanPostProcessor sqlMonitoringDataSourcePostProcessor(Environment environment) {
+        Duration slowQueryThreshold = Binder.get(environment)
+                .bind("shareit.sql.slow-query-threshold", Duration.class)
+                .orElse(Duration.ZERO);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource) {
+                    return new SqlMonitoringDataSource((DataSource) bean, slowQueryThreshold);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // В тестах слоя веб без метрик реестра нет, метрики тогда пишутся в глобальный реестр
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlStatisticsInterceptor(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry),
+                statementBudget));
+    }
+}
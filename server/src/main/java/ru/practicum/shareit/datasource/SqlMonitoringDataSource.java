@@ -0,0 +1,154 @@
+package ru.practicum.shareit.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Соединения и запросы оборачиваются прокси, которые учитывают выполненные запросы в SqlStatistics.
+// Запросы дольше порога пишутся в лог с параметрами и методом репозитория, из которого они выполнены
+@Slf4j
+public class SqlMonitoringDataSource extends DelegatingDataSource implements AutoCloseable {
+    private static final String APPLICATION_PACKAGE = "ru.practicum.shareit";
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(
+            StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private final long slowQueryThresholdNanos;
+
+    public SqlMonitoringDataSource(DataSource target, Duration slowQueryThreshold) {
+        super(target);
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    // Пул основной БД без реплик - сам источник, он закрывается вместе с оберткой
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable) {
+            ((AutoCloseable) getTargetDataSource()).close();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String
+                                ? (String) args[0] : null;
+                        return wrap((Statement) result, sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement wrap(Statement statement, String sql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                new StatementHandler(statement, sql));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Метод репозитория, выполнивший запрос: репозитории Spring Data - JDK-прокси своих интерфейсов.
+    // Без репозитория в стеке, например при догрузке связи, берется ближайший метод приложения
+    private static String findCaller() {
+        return STACK_WALKER.walk(frames -> {
+            String applicationFrame = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                Class<?> type = frame.getDeclaringClass();
+                if (Proxy.isProxyClass(type) && type.getInterfaces().length > 0
+                        && type.getInterfaces()[0].getName().startsWith(APPLICATION_PACKAGE)) {
+                    return type.getInterfaces()[0].getSimpleName() + "." + frame.getMethodName();
+                }
+                if (applicationFrame == null && type.getName().startsWith(APPLICATION_PACKAGE)
+                        && !type.getPackageName().equals(SqlMonitoringDataSource.class.getPackageName())) {
+                    applicationFrame = type.getSimpleName() + "." + frame.getMethodName();
+                }
+            }
+            return applicationFrame != null ? applicationFrame : "кода вне приложения";
+        });
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String sql;
+        // Параметры нужны только для лога медленных запросов
+        private final List<Object> parameters = slowQueryThresholdNanos > 0 ? new ArrayList<>() : null;
+
+        StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                return execute(method, args);
+            }
+            if (parameters != null) {
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    setParameter((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                } else if (name.equals("clearParameters")) {
+                    parameters.clear();
+                }
+            }
+            return SqlMonitoringDataSource.invoke(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            long start = System.nanoTime();
+            try {
+                return SqlMonitoringDataSource.invoke(statement, method, args);
+            } finally {
+                long elapsedNanos = System.nanoTime() - start;
+                SqlStatistics.record(elapsedNanos);
+                if (slowQueryThresholdNanos > 0 && elapsedNanos >= slowQueryThresholdNanos) {
+                    String executedSql = args != null && args.length > 0 && args[0] instanceof String
+                            ? (String) args[0] : sql;
+                    log.warn("Медленный SQL-запрос {} мс из {}: {}, параметры {}",
+                            Duration.ofNanos(elapsedNanos).toMillis(), findCaller(), executedSql, parameters);
+                }
+            }
+        }
+
+        private void setParameter(int index, Object value) {
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            parameters.set(index - 1, value);
+        }
+    }
+}
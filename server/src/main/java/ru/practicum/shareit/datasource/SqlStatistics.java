@@ -0,0 +1,34 @@
+package ru.practicum.shareit.datasource;
+
+import lombok.Getter;
+
+// Число и суммарное время SQL-запросов текущего HTTP-запроса. Вне HTTP-запросов запросы не учитываются
+@Getter
+public class SqlStatistics {
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statementCount;
+    private long elapsedNanos;
+
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    static void start() {
+        CURRENT.set(new SqlStatistics());
+    }
+
+    static SqlStatistics finish() {
+        SqlStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        return statistics;
+    }
+
+    static void record(long elapsedNanos) {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statementCount++;
+            statistics.elapsedNanos += elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.time.Duration;
+
+// Число и время SQL-запросов в заголовках ответа, включается вне production. Заголовки ставятся перед
+// записью тела: после нее ответ уже отправлен
+@ControllerAdvice
+@ConditionalOnProperty(name = "shareit.sql.response-headers", havingValue = "true")
+public class SqlStatisticsResponseAdvice implements ResponseBodyAdvice<Object> {
+    static final String STATEMENT_COUNT_HEADER = "X-Sql-Statement-Count";
+    static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            response.getHeaders().set(STATEMENT_COUNT_HEADER, String.valueOf(statistics.getStatementCount()));
+            response.getHeaders().set(TIME_HEADER,
+                    String.valueOf(Duration.ofNanos(statistics.getElapsedNanos()).toMillis()));
+        }
+        return body;
+    }
+}
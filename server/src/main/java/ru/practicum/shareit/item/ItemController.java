@@ -1,13 +1,20 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithBookingDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.SeekCursor;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 @RestController
@@ -33,18 +40,38 @@ public class ItemController {
         return itemService.getItemById(itemId, userId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public List<AvailabilityIntervalDto> getItemAvailability(
+            @RequestHeader(name = "X-Sharer-User-Id") Long userId,
+            @PathVariable Long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemService.getItemAvailability(itemId, userId, from, to);
+    }
+
     @GetMapping
-    public Collection<ItemWithBookingDto> getAllItemsByOwnerId(@RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
-                                                               @RequestParam int from,
-                                                               @RequestParam int size) {
-        return itemService.getAllItemsByOwnerId(ownerId, from, size);
+    public ResponseEntity<Collection<ItemWithBookingDto>> getAllItemsByOwnerId(
+            @RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam int size,
+            @RequestParam(required = false) Long after) {
+        if (after == null) {
+            return ResponseEntity.ok(itemService.getAllItemsByOwnerId(ownerId, from, size));
+        }
+        Collection<ItemWithBookingDto> items = itemService.getAllItemsByOwnerId(ownerId, after, size);
+        return withNextCursor(items, items.stream().map(ItemWithBookingDto::getId));
     }
 
     @GetMapping("/search")
-    public Collection<ItemDto> getItemsBySearch(@RequestParam(name = "text") String textForSearch,
-                                                @RequestParam int from,
-                                                @RequestParam int size) {
-        return itemService.getItemsBySearch(textForSearch, from, size);
+    public ResponseEntity<Collection<ItemDto>> getItemsBySearch(@RequestParam(name = "text") String textForSearch,
+                                                                @RequestParam(defaultValue = "0") int from,
+                                                                @RequestParam int size,
+                                                                @RequestParam(required = false) Long after) {
+        if (after == null) {
+            return ResponseEntity.ok(itemService.getItemsBySearch(textForSearch, from, size));
+        }
+        Collection<ItemDto> items = itemService.getItemsBySearch(textForSearch, after, size);
+        return withNextCursor(items, items.stream().map(ItemDto::getId));
     }
 
     @PostMapping("/{itemId}/comment")
@@ -53,4 +80,12 @@ public class ItemController {
                                  @RequestBody CommentDto commentDto) {
         return itemService.addComment(authorId, itemId, commentDto);
     }
+
+    // Курсор следующей страницы - id последней вещи выборки
+    private <T> ResponseEntity<Collection<T>> withNextCursor(Collection<T> items, Stream<Long> ids) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        ids.reduce((first, second) -> second)
+                .ifPresent(lastId -> response.header(SeekCursor.NEXT_CURSOR_HEADER, lastId.toString()));
+        return response.body(items);
+    }
 }
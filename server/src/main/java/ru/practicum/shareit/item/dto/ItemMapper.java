@@ -1,14 +1,16 @@
 package ru.practicum.shareit.item.dto;
 
 import ru.practicum.shareit.booking.dto.BookingMapper;
-import ru.practicum.shareit.comment.dto.CommentMapper;
-import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.booking.model.AvailabilityInterval;
+import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemView;
 import ru.practicum.shareit.item.model.ItemWithBooking;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -24,6 +26,22 @@ public class ItemMapper {
                 .build();
     }
 
+    // Новый экземпляр на каждый вызов, поэтому его изменения не попадают в кэш. Владелец и запрос - экземпляры
+    // только с id: для ссылок из новых строк Hibernate нужен лишь их id
+    public static Item mapToItem(ItemView item) {
+        return Item.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .owner(Optional.ofNullable(item.getOwnerId()).map(id -> User.builder().id(id).build()).orElse(null))
+                .request(Optional.ofNullable(item.getRequestId())
+                        .map(id -> ItemRequest.builder().id(id).build())
+                        .orElse(null))
+                .version(item.getVersion())
+                .build();
+    }
+
     public static ItemDto mapToItemDto(Item item) {
         return ItemDto.builder()
                 .id(item.getId())
@@ -39,15 +57,27 @@ public class ItemMapper {
     }
 
     public static ItemWithBookingDto mapToItemWithBookingDto(ItemWithBooking item,
-                                                             Collection<Comment> comments) {
+                                                             Collection<CommentDto> comments) {
         return ItemWithBookingDto.builder()
                 .id(item.getId())
                 .name(item.getName())
                 .description(item.getDescription())
                 .available(item.getAvailable())
-                .lastBooking(BookingMapper.mapToSimpleBookingDto(item.getLastBooking()))
-                .nextBooking(BookingMapper.mapToSimpleBookingDto(item.getNextBooking()))
-                .comments(CommentMapper.mapToCommentDto(comments))
+                .lastBooking(BookingMapper.mapToSimpleBookingDto(item.getLastBooking(),
+                        item.getLastBookingBookerId()))
+                .nextBooking(BookingMapper.mapToSimpleBookingDto(item.getNextBooking(),
+                        item.getNextBookingBookerId()))
+                .comments(comments)
                 .build();
     }
+
+    public static List<AvailabilityIntervalDto> mapToAvailabilityIntervalDto(List<AvailabilityInterval> intervals) {
+        return intervals.stream()
+                .map(interval -> AvailabilityIntervalDto.builder()
+                        .start(interval.getStart())
+                        .end(interval.getEnd())
+                        .available(interval.isAvailable())
+                        .build())
+                .collect(Collectors.toList());
+    }
 }
@@ -26,12 +26,15 @@ public class Item {
     String description;
     @Column(name = "is_available")
     Boolean available;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     User owner;
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
     ItemRequest request;
+    // Версия строки: одновременные изменения вещи не затирают друг друга
+    @Version
+    Long version;
 
     public Long getOwnerOfItemId() {
         return Optional.ofNullable(this.owner).map(User::getId).orElse(null);
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+@Table(name = "item_booking_projections")
+public class ItemBookingProjection {
+    @Id
+    @Column(name = "item_id")
+    Long itemId;
+    @Column(name = "last_booking_id")
+    Long lastBookingId;
+    @Column(name = "last_booking_booker_id")
+    Long lastBookingBookerId;
+    @Column(name = "last_booking_start")
+    LocalDateTime lastBookingStart;
+    @Column(name = "next_booking_id")
+    Long nextBookingId;
+    @Column(name = "next_booking_booker_id")
+    Long nextBookingBookerId;
+    @Column(name = "next_booking_start")
+    LocalDateTime nextBookingStart;
+}
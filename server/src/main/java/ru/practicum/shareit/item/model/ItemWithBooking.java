@@ -26,16 +26,21 @@ public class ItemWithBooking {
     String description;
     @Column(name = "is_available")
     Boolean available;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     User owner;
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
     ItemRequest request;
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "last_booking_id")
     Booking lastBooking;
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "next_booking_id")
     Booking nextBooking;
+    // Авторы бронирований приходят колонками запроса, чтобы сами бронирования не загружались
+    @Column(name = "last_booking_booker_id")
+    Long lastBookingBookerId;
+    @Column(name = "next_booking_booker_id")
+    Long nextBookingBookerId;
 }
@@ -0,0 +1,221 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.datasource.ReplicaRouting;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Инвертированный индекс по триграммам названия и описания доступных вещей. Загружается из БД при первом
+// обращении, дальше поддерживается сервисом вещей. Кандидаты берутся из самого короткого списка триграмм
+// запроса и проверяются на вхождение подстроки, поэтому результат совпадает с поиском через like
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+public class InMemoryItemSearchEngine implements ItemSearchEngine {
+    private static final int GRAM_LENGTH = 3;
+
+    private final ItemRepository itemRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IndexedItem> itemsById = new HashMap<>();
+    private final Map<String, Set<Long>> itemIdsByGram = new HashMap<>();
+    private volatile boolean loaded;
+
+    @Override
+    public List<Item> search(String text, Pageable pageable) {
+        String query = text.toLowerCase();
+        List<Long> ids = read(() -> findMatches(query)
+                .sorted(Comparator.comparingInt((IndexedItem item) -> item.rank(query)).reversed()
+                        .thenComparing(IndexedItem::getId))
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .map(IndexedItem::getId)
+                .collect(Collectors.toList()));
+        return findAllInOrder(ids);
+    }
+
+    @Override
+    public List<Item> searchAfter(String text, Long afterId, int size) {
+        String query = text.toLowerCase();
+        List<Long> ids = read(() -> findMatches(query)
+                .map(IndexedItem::getId)
+                .filter(id -> id > afterId)
+                .sorted()
+                .limit(size)
+                .collect(Collectors.toList()));
+        return findAllInOrder(ids);
+    }
+
+    @Override
+    public void index(Item item) {
+        // Если индекс еще не загружен, вещь попадет в него при загрузке
+        write(() -> put(item));
+    }
+
+    @Override
+    public void remove(Long itemId) {
+        write(() -> delete(itemId));
+    }
+
+    @Override
+    public void removeAllByOwnerId(Long ownerId) {
+        write(() -> itemsById.values().stream()
+                .filter(item -> ownerId.equals(item.getOwnerId()))
+                .map(IndexedItem::getId)
+                .collect(Collectors.toList())
+                .forEach(this::delete));
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        load();
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable writer) {
+        invalidateOnRollback();
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                writer.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        invalidateOnRollback();
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                itemsById.clear();
+                itemIdsByGram.clear();
+                ReplicaRouting.readFromPrimary(itemRepository::findAll).forEach(this::put);
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Индекс мог увидеть изменения, которые не попадут в БД, поэтому после отката он перечитывается заново
+    private void invalidateOnRollback() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        loaded = false;
+                    }
+                }
+            });
+        }
+    }
+
+    private void put(Item item) {
+        delete(item.getId());
+        if (!Boolean.TRUE.equals(item.getAvailable())) {
+            return;
+        }
+        IndexedItem indexedItem = new IndexedItem(item.getId(), item.getOwnerOfItemId(),
+                item.getName().toLowerCase(), item.getDescription().toLowerCase());
+        itemsById.put(indexedItem.getId(), indexedItem);
+        indexedItem.grams().forEach(gram -> itemIdsByGram.computeIfAbsent(gram, g -> new HashSet<>())
+                .add(indexedItem.getId()));
+    }
+
+    private void delete(Long itemId) {
+        IndexedItem indexedItem = itemsById.remove(itemId);
+        if (indexedItem == null) {
+            return;
+        }
+        indexedItem.grams().forEach(gram -> {
+            Set<Long> itemIds = itemIdsByGram.get(gram);
+            itemIds.remove(itemId);
+            if (itemIds.isEmpty()) {
+                itemIdsByGram.remove(gram);
+            }
+        });
+    }
+
+    private Stream<IndexedItem> findMatches(String query) {
+        if (query.length() < GRAM_LENGTH) {
+            return itemsById.values().stream().filter(item -> item.matches(query));
+        }
+        Set<Long> candidates = null;
+        for (String gram : grams(query)) {
+            Set<Long> itemIds = itemIdsByGram.getOrDefault(gram, Collections.emptySet());
+            if (candidates == null || itemIds.size() < candidates.size()) {
+                candidates = itemIds;
+            }
+        }
+        return candidates.stream()
+                .map(itemsById::get)
+                .filter(item -> item.matches(query));
+    }
+
+    private List<Item> findAllInOrder(List<Long> ids) {
+        Map<Long, Item> itemsById = itemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ids.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    @RequiredArgsConstructor
+    @Getter
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static class IndexedItem {
+        Long id;
+        Long ownerId;
+        String name;
+        String description;
+
+        private boolean matches(String query) {
+            return name.contains(query) || description.contains(query);
+        }
+
+        // Совпадение в названии важнее совпадения в описании
+        private int rank(String query) {
+            return (name.contains(query) ? 2 : 0) + (description.contains(query) ? 1 : 0);
+        }
+
+        private Set<String> grams() {
+            Set<String> grams = InMemoryItemSearchEngine.grams(name);
+            grams.addAll(InMemoryItemSearchEngine.grams(description));
+            return grams;
+        }
+    }
+}
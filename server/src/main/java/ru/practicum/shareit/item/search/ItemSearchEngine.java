@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+// Поиск доступных вещей по подстроке в названии или описании. Реализация выбирается свойством shareit.search.engine
+public interface ItemSearchEngine {
+    // Найденные вещи в порядке убывания релевантности
+    List<Item> search(String text, Pageable pageable);
+
+    // Найденные вещи с id больше курсора в порядке возрастания id
+    List<Item> searchAfter(String text, Long afterId, int size);
+
+    void index(Item item);
+
+    void remove(Long itemId);
+
+    void removeAllByOwnerId(Long ownerId);
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.List;
+
+// Поиск запросом like по таблице вещей без индекса и ранжирования
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "like", matchIfMissing = true)
+public class LikeItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Item> search(String text, Pageable pageable) {
+        return itemRepository.findAllBySearch(text, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by("id").ascending()));
+    }
+
+    @Override
+    public List<Item> searchAfter(String text, Long afterId, int size) {
+        return itemRepository.findAllBySearchAfter(text, afterId, PageRequest.ofSize(size));
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+
+    @Override
+    public void remove(Long itemId) {
+    }
+
+    @Override
+    public void removeAllByOwnerId(Long ownerId) {
+    }
+}
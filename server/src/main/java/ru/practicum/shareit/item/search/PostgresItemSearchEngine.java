@@ -0,0 +1,46 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.List;
+
+// Поиск средствами PostgreSQL: отбор по триграммным индексам (миграция Flyway
+// db/migration/postgresql/V3__add_item_search_trigram_indexes.sql), ранжирование по tsvector.
+// Индексы поддерживает сама БД, поэтому изменения вещей здесь не отслеживаются
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "postgres")
+public class PostgresItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Item> search(String text, Pageable pageable) {
+        return itemRepository.findAllByFullTextSearch(toLikePattern(text), text, pageable);
+    }
+
+    @Override
+    public List<Item> searchAfter(String text, Long afterId, int size) {
+        return itemRepository.findAllByTrigramSearchAfter(toLikePattern(text), afterId, size);
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+
+    @Override
+    public void remove(Long itemId) {
+    }
+
+    @Override
+    public void removeAllByOwnerId(Long ownerId) {
+    }
+
+    private String toLikePattern(String text) {
+        return "%" + text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
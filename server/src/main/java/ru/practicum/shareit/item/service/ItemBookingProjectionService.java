@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.service;
+
+import ru.practicum.shareit.booking.model.Booking;
+
+public interface ItemBookingProjectionService {
+    void onBookingApproved(Booking booking);
+
+    void rollForward();
+}
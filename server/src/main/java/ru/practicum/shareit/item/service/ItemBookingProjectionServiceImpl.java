@@ -0,0 +1,86 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.model.ItemBookingProjection;
+import ru.practicum.shareit.item.storage.ItemBookingProjectionRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+@Service("itemBookingProjectionServiceImpl")
+@Slf4j
+public class ItemBookingProjectionServiceImpl implements ItemBookingProjectionService {
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final ItemBookingProjectionRepository projectionRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+
+    @Override
+    @Transactional
+    public void onBookingApproved(Booking booking) {
+        Long itemId = booking.getItemIdOfBooking();
+        Long bookerId = Optional.ofNullable(booking.getBooker()).map(User::getId).orElse(null);
+        LocalDateTime start = booking.getStart();
+        LocalDateTime now = LocalDateTime.now();
+
+        if (!projectionRepository.existsById(itemId)) {
+            projectionRepository.saveAndFlush(ItemBookingProjection.builder().itemId(itemId).build());
+        }
+
+        if (start.isBefore(now)) {
+            projectionRepository.updateLastBookingIfLater(itemId, booking.getId(), bookerId, start);
+        } else if (start.isAfter(now)) {
+            projectionRepository.updateNextBookingIfEarlier(itemId, booking.getId(), bookerId, start);
+        }
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${shareit.item-booking-projection.roll-forward-delay-ms:60000}")
+    public void rollForward() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemBookingProjection> staleProjections = new ArrayList<>(projectionRepository.findAllStale(now));
+        // Вещи, подтвержденные бронирования которых появились раньше таблицы проекций, получают проекции
+        // порциями при первых запусках. Вещи блокируются, чтобы одновременное подтверждение не вставило ту же строку
+        List<Long> missingItemIds = projectionRepository.findItemIdsWithoutProjection(BookingStatus.APPROVED,
+                PageRequest.of(0, BACKFILL_BATCH_SIZE));
+        if (!missingItemIds.isEmpty()) {
+            bookingIntervalIndex.lockItemsUntilCompletion(missingItemIds);
+            missingItemIds.forEach(itemId -> staleProjections.add(ItemBookingProjection.builder()
+                    .itemId(itemId)
+                    .build()));
+        }
+
+        for (ItemBookingProjection projection : staleProjections) {
+            Long itemId = projection.getItemId();
+            Optional<Booking> lastBooking = bookingRepository.findLastApprovedBookingByItemId(itemId, now);
+            Optional<Booking> nextBooking = bookingRepository.findNextApprovedBookingByItemId(itemId, now);
+
+            projection.setLastBookingId(lastBooking.map(Booking::getId).orElse(null));
+            projection.setLastBookingBookerId(lastBooking.map(Booking::getBooker).map(User::getId).orElse(null));
+            projection.setLastBookingStart(lastBooking.map(Booking::getStart).orElse(null));
+            projection.setNextBookingId(nextBooking.map(Booking::getId).orElse(null));
+            projection.setNextBookingBookerId(nextBooking.map(Booking::getBooker).map(User::getId).orElse(null));
+            projection.setNextBookingStart(nextBooking.map(Booking::getStart).orElse(null));
+        }
+
+        if (!staleProjections.isEmpty()) {
+            projectionRepository.saveAll(staleProjections);
+            log.debug("Rolled forward {} item booking projections", staleProjections.size());
+        }
+    }
+}
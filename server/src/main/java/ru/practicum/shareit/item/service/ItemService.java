@@ -1,10 +1,14 @@
 package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithBookingDto;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface ItemService {
     ItemDto addItem(Long ownerId, ItemDto itemDto);
@@ -17,9 +21,17 @@ public interface ItemService {
 
     Collection<ItemWithBookingDto> getAllItemsByOwnerId(Long ownerId, int from, int size);
 
+    Collection<ItemWithBookingDto> getAllItemsByOwnerId(Long ownerId, Long after, int size);
+
     ItemWithBookingDto getItemById(Long itemId, Long userId);
 
+    List<AvailabilityIntervalDto> getItemAvailability(Long itemId, Long userId, LocalDateTime from, LocalDateTime to);
+
     Collection<ItemDto> getItemsBySearch(String textForSearch, int from, int size);
 
+    Collection<ItemDto> getItemsBySearch(String textForSearch, Long after, int size);
+
     CommentDto addComment(Long authorId, Long itemId, CommentDto commentDto);
+
+    Map<Long, List<CommentDto>> getCommentsByItemIds(Collection<Long> itemIds);
 }
@@ -1,48 +1,69 @@
 package ru.practicum.shareit.item.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.BookingStateCounters;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CommentMapper;
 import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.model.ItemComment;
 import ru.practicum.shareit.comment.storage.CommentRepository;
+import ru.practicum.shareit.concurrency.RetryOnConflict;
 import ru.practicum.shareit.exception.NotAllowedException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.dto.ItemWithBookingDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.model.ItemWithBooking;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.item.storage.ItemWithBookingRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.user.storage.UserLookup;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
+@Timed("shareit.service")
 @Service("itemServiceImpl")
 public class ItemServiceImpl implements ItemService {
     private final ItemRepository itemRepository;
-    private final UserRepository userRepository;
+    private final UserLookup userLookup;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemWithBookingRepository itemWithBookingRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookingStateCounters bookingStateCounters;
+    private final ItemSearchEngine itemSearchEngine;
+
+    // Сколько последних отзывов отдавать к каждой вещи, 0 - без ограничения
+    @Value("${shareit.item.comments-per-item-limit:0}")
+    private int commentsPerItemLimit;
 
     @Override
     public ItemDto addItem(Long ownerId, ItemDto itemDto) {
-        User owner = userRepository.findById(ownerId)
-                .orElseThrow(() -> new NotFoundException("Не найден пользователь с id " + ownerId));
+        User owner = userLookup.getUser(ownerId);
 
         ItemRequest itemRequest = null;
         if (itemDto.getRequestId() != null) {
@@ -51,13 +72,18 @@ public class ItemServiceImpl implements ItemService {
 
 
         Item item = itemRepository.save(ItemMapper.mapToItem(itemDto, owner, itemRequest));
+        itemSearchEngine.index(item);
         return ItemMapper.mapToItemDto(item);
     }
 
+    // Чтение и сохранение с проверкой версии идут в одной транзакции, каждый повтор перечитывает вещь.
+    // Версия проверяется при сохранении, до обновления поискового индекса
     @Override
+    @RetryOnConflict
+    @Transactional
+    @CacheEvict(cacheNames = "items", key = "#itemId")
     public ItemDto updateItem(Long ownerId, Long itemId, ItemDto itemDto) {
-        User owner = userRepository.findById(ownerId)
-                .orElseThrow(() -> new NotFoundException("Не найден пользователь с id " + ownerId));
+        User owner = userLookup.getUser(ownerId);
         Item foundItem = itemRepository.findByIdAndOwnerId(itemId, ownerId)
                 .orElseThrow(() -> new NotFoundException("Не найдена вещь с id " + itemId +
                         " у владельца с id " + ownerId));
@@ -74,81 +100,142 @@ public class ItemServiceImpl implements ItemService {
              foundItem.setAvailable(item.getAvailable());
          }
 
-        return ItemMapper.mapToItemDto(itemRepository.save(foundItem));
+        Item savedItem = itemRepository.saveAndFlush(foundItem);
+        itemSearchEngine.index(savedItem);
+        return ItemMapper.mapToItemDto(savedItem);
     }
 
     @Override
+    @CacheEvict(cacheNames = "items", key = "#itemId")
     public void deleteItem(Long ownerId, Long itemId) {
-        if (!userRepository.existsById(ownerId)) {
-            throw new NotFoundException("Не найден пользователь с id " + ownerId);
-        } else if (!itemRepository.existsByIdAndOwnerId(itemId, ownerId)) {
+        userLookup.checkExists(ownerId);
+        if (!itemRepository.existsByIdAndOwnerId(itemId, ownerId)) {
             throw new NotFoundException("Не найдена вещь с id " + itemId +
                     " у владельца с id " + ownerId);
         }
         itemRepository.deleteByIdAndOwnerId(itemId, ownerId);
+        bookingIntervalIndex.evictItem(itemId);
+        bookingStateCounters.evictAll();
+        itemSearchEngine.remove(itemId);
     }
 
     @Override
+    @CacheEvict(cacheNames = "items", allEntries = true)
     public void deleteAllOwnerItems(Long ownerId) {
-        if (!userRepository.existsById(ownerId)) {
-            throw new NotFoundException("Не найден пользователь с id " + ownerId);
-        }
+        userLookup.checkExists(ownerId);
         itemRepository.deleteAllByOwnerId(ownerId);
+        bookingIntervalIndex.evictAll();
+        bookingStateCounters.evictAll();
+        itemSearchEngine.removeAllByOwnerId(ownerId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<ItemWithBookingDto> getAllItemsByOwnerId(Long ownerId, int from, int size) {
-        if (!userRepository.existsById(ownerId)) {
-            throw new NotFoundException("Не найден пользователь с id " + ownerId);
-        }
-        Collection<ItemWithBooking> items = itemWithBookingRepository.findItemWithBookingByOwnerId(ownerId,
-                LocalDateTime.now(), getPageRequest(from, size));
+        userLookup.checkExists(ownerId);
+        Collection<ItemWithBooking> items = itemWithBookingRepository.findItemWithProjectedBookingByOwnerId(ownerId,
+                getPageRequest(from, size));
+        return mapToItemWithBookingDto(items);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<ItemWithBookingDto> getAllItemsByOwnerId(Long ownerId, Long after, int size) {
+        userLookup.checkExists(ownerId);
+        Collection<ItemWithBooking> items = itemWithBookingRepository.findItemWithProjectedBookingByOwnerIdAfter(
+                ownerId, after, size);
+        return mapToItemWithBookingDto(items);
+    }
 
-        Collection<Comment> allComments = commentRepository.findAllByItemIdIn(
+    private Collection<ItemWithBookingDto> mapToItemWithBookingDto(Collection<ItemWithBooking> items) {
+        Map<Long, List<CommentDto>> commentsByItemId = getCommentsByItemIds(
                 items.stream().map(ItemWithBooking::getId).collect(Collectors.toList()));
 
-        Collection<ItemWithBookingDto> itemWithBookingDtos = new ArrayList<>();
+        Collection<ItemWithBookingDto> itemWithBookingDtos = new ArrayList<>(items.size());
 
         for (ItemWithBooking item : items) {
             itemWithBookingDtos.add(ItemMapper.mapToItemWithBookingDto(item,
-                    allComments
-                            .stream()
-                            .filter(comment -> comment.getItemOfCommentId().equals(item.getId()))
-                            .collect(Collectors.toList())));
+                    commentsByItemId.getOrDefault(item.getId(), List.of())));
         }
 
         return itemWithBookingDtos;
     }
 
     @Override
-    public ItemWithBookingDto getItemById(Long itemId, Long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new NotFoundException("Не найден пользователь с id " + userId);
+    public Map<Long, List<CommentDto>> getCommentsByItemIds(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Map.of();
+        }
+        // Отзывы приходят отсортированными, поэтому порядок внутри каждой вещи сохраняется за один проход
+        List<ItemComment> comments = commentsPerItemLimit > 0
+                ? commentRepository.findLatestItemCommentsByItemIdIn(itemIds, commentsPerItemLimit)
+                : commentRepository.findItemCommentsByItemIdIn(itemIds);
+
+        Map<Long, List<CommentDto>> commentsByItemId = new HashMap<>(itemIds.size() * 4 / 3 + 1);
+        for (ItemComment comment : comments) {
+            commentsByItemId.computeIfAbsent(comment.getItemId(), itemId -> new ArrayList<>())
+                    .add(CommentMapper.mapToCommentDto(comment));
         }
+        return commentsByItemId;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ItemWithBookingDto getItemById(Long itemId, Long userId) {
+        userLookup.checkExists(userId);
 
         LocalDateTime nowDateTime = LocalDateTime.now();
 
         ItemWithBooking item = itemWithBookingRepository.findItemWithBookingById(itemId, userId, nowDateTime)
                 .orElseThrow(() -> new NotFoundException("Не найдена вещь с id " + itemId));
 
-        return ItemMapper.mapToItemWithBookingDto(item, commentRepository.findAllByItemId(itemId));
+        return ItemMapper.mapToItemWithBookingDto(item,
+                getCommentsByItemIds(List.of(itemId)).getOrDefault(itemId, List.of()));
     }
 
+    // Календарь строится по индексу бронирований вещи в памяти, без выборки ее бронирований из БД
     @Override
+    public List<AvailabilityIntervalDto> getItemAvailability(Long itemId, Long userId, LocalDateTime from,
+                                                             LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            throw new ValidationException("Конец периода должен быть позже его начала");
+        }
+        userLookup.checkExists(userId);
+        if (itemRepository.findViewById(itemId).isEmpty()) {
+            throw new NotFoundException("Не найдена вещь с id " + itemId);
+        }
+        return ItemMapper.mapToAvailabilityIntervalDto(bookingIntervalIndex.getAvailability(itemId, from, to));
+    }
+
+    // Движки поиска возвращают сущности: индекс в памяти строится по ним же. В транзакции только для чтения
+    // Hibernate не хранит снимки найденных вещей и не проверяет их изменения
+    @Override
+    @Transactional(readOnly = true)
     public Collection<ItemDto> getItemsBySearch(String textForSearch, int from, int size) {
         if (textForSearch.isEmpty()) {
             return new ArrayList<>();
         }
-        Collection<Item> items = itemRepository.findAllBySearch(textForSearch, getPageRequest(from, size));
+        Collection<Item> items = itemSearchEngine.search(textForSearch,
+                PageRequest.of(from > 0 ? from / size : 0, size));
+        return ItemMapper.mapToItemDto(items);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<ItemDto> getItemsBySearch(String textForSearch, Long after, int size) {
+        if (textForSearch.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Collection<Item> items = itemSearchEngine.searchAfter(textForSearch, after, size);
         return ItemMapper.mapToItemDto(items);
     }
 
     @Override
     public CommentDto addComment(Long authorId, Long itemId, CommentDto commentDto) {
-        User author = userRepository.findById(authorId)
-                .orElseThrow(() -> new NotFoundException("Не найден пользователь с id " + authorId));
+        User author = userLookup.getUser(authorId);
 
-        Item item = itemRepository.findById(itemId)
+        Item item = itemRepository.findViewById(itemId)
+                .map(ItemMapper::mapToItem)
                 .orElseThrow(() -> new NotFoundException("Не найдена вещь с id " + itemId));
 
         if (!bookingRepository.existsByItemIdAndBookerIdAndStatusAndEndLessThan(itemId, authorId,
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.ItemBookingProjection;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ItemBookingProjectionRepository extends JpaRepository<ItemBookingProjection, Long> {
+    // Последнее бронирование заменяется, только если новое начинается позже
+    @Modifying
+    @Query("update ItemBookingProjection as p " +
+            "set p.lastBookingId = ?2, p.lastBookingBookerId = ?3, p.lastBookingStart = ?4 " +
+            "where p.itemId = ?1 " +
+            "   and (p.lastBookingStart is null or p.lastBookingStart < ?4)")
+    int updateLastBookingIfLater(Long itemId, Long bookingId, Long bookerId, LocalDateTime start);
+
+    // Следующее бронирование заменяется, только если новое начинается раньше
+    @Modifying
+    @Query("update ItemBookingProjection as p " +
+            "set p.nextBookingId = ?2, p.nextBookingBookerId = ?3, p.nextBookingStart = ?4 " +
+            "where p.itemId = ?1 " +
+            "   and (p.nextBookingStart is null or p.nextBookingStart > ?4)")
+    int updateNextBookingIfEarlier(Long itemId, Long bookingId, Long bookerId, LocalDateTime start);
+
+    // Проекции, у которых следующее бронирование уже началось или бронирование было удалено
+    @Query("select p " +
+            "from ItemBookingProjection as p " +
+            "where p.nextBookingStart <= ?1 " +
+            "   or (p.nextBookingId is null and p.nextBookingStart is not null) " +
+            "   or (p.lastBookingId is null and p.lastBookingStart is not null)")
+    List<ItemBookingProjection> findAllStale(LocalDateTime date);
+
+    // Вещи с бронированиями в указанном статусе, у которых еще нет проекции
+    @Query("select it.id " +
+            "from Item as it " +
+            "where exists (select bk.id from Booking as bk where bk.item.id = it.id and bk.status = ?1) " +
+            "   and not exists (select p.itemId from ItemBookingProjection as p where p.itemId = it.id) " +
+            "order by it.id")
+    List<Long> findItemIdsWithoutProjection(BookingStatus status, Pageable pageable);
+}
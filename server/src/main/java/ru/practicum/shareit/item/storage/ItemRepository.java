@@ -1,14 +1,31 @@
 package ru.practicum.shareit.item.storage;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemView;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    // Кэшируются неизменяемые представления найденных вещей, а не сущности: экземпляр в кэше общий
+    // для всех потоков. Отсутствие не запоминается
+    @Cacheable(cacheNames = "items", key = "#p0", unless = "#result == null")
+    @Query("select new ru.practicum.shareit.item.model.ItemView(" +
+            "   it.id, it.name, it.description, it.available, o.id, r.id, it.version) " +
+            "from Item as it " +
+            "left join it.owner as o " +
+            "left join it.request as r " +
+            "where it.id = ?1")
+    Optional<ItemView> findViewById(Long id);
+
+    // Удаляет одним запросом, бронирования и отзывы удаляются каскадно в БД
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Item as it where it.owner.id = ?1")
     void deleteAllByOwnerId(Long ownerId);
 
     void deleteByIdAndOwnerId(Long itemId, Long ownerId);
@@ -23,4 +40,39 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             "and (upper(it.name) like upper(concat('%', ?1, '%')) " +
             "   or upper(it.description) like upper(concat('%', ?1, '%')))")
     List<Item> findAllBySearch(String searchText, Pageable pageable);
+
+    // Поиск доступных вещей с id больше курсора
+    @Query("select it " +
+            "from Item as it " +
+            "where it.available = true " +
+            "and it.id > ?2 " +
+            "and (upper(it.name) like upper(concat('%', ?1, '%')) " +
+            "   or upper(it.description) like upper(concat('%', ?1, '%'))) " +
+            "order by it.id")
+    List<Item> findAllBySearchAfter(String searchText, Long afterId, Pageable pageable);
+
+    // Поиск доступных вещей по триграммным индексам PostgreSQL: сначала совпадения в названии,
+    // затем по рангу полнотекстового совпадения
+    @Query(value = "select it.* " +
+            "from items as it " +
+            "where it.is_available = true " +
+            "   and (it.name ilike ?1 or it.description ilike ?1) " +
+            "order by " +
+            "   (case when it.name ilike ?1 then 2 else 0 end " +
+            "       + case when it.description ilike ?1 then 1 else 0 end) desc, " +
+            "   ts_rank(setweight(to_tsvector('simple', it.name), 'A') " +
+            "       || setweight(to_tsvector('simple', it.description), 'B'), " +
+            "       plainto_tsquery('simple', ?2)) desc, " +
+            "   it.id", nativeQuery = true)
+    List<Item> findAllByFullTextSearch(String likePattern, String searchText, Pageable pageable);
+
+    // Поиск доступных вещей с id больше курсора по триграммным индексам PostgreSQL
+    @Query(value = "select it.* " +
+            "from items as it " +
+            "where it.is_available = true " +
+            "   and it.id > ?2 " +
+            "   and (it.name ilike ?1 or it.description ilike ?1) " +
+            "order by it.id " +
+            "limit ?3", nativeQuery = true)
+    List<Item> findAllByTrigramSearchAfter(String likePattern, Long afterId, int limit);
 }
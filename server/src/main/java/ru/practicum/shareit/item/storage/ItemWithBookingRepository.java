@@ -112,4 +112,45 @@ public interface ItemWithBookingRepository extends JpaRepository<ItemWithBooking
             "where " +
             "   it.owner_id = ?1", nativeQuery = true)
     List<ItemWithBooking> findItemWithBookingByOwnerId(Long ownerId, LocalDateTime date, Pageable pageable);
+
+    // Вещи владельца с последним и следующим бронированием из материализованной проекции
+    @Query(value = "select " +
+            "   it.id as id, " +
+            "   it.name as name, " +
+            "   it.description as description, " +
+            "   it.is_available as is_available, " +
+            "   it.owner_id as owner_id, " +
+            "   p.last_booking_id as last_booking_id, " +
+            "   p.last_booking_booker_id as last_booking_booker_id, " +
+            "   p.next_booking_id as next_booking_id, " +
+            "   p.next_booking_booker_id as next_booking_booker_id, " +
+            "   NULL as request_id " +
+            "from items as it " +
+            "left join item_booking_projections as p " +
+            "   on it.id = p.item_id " +
+            "where " +
+            "   it.owner_id = ?1", nativeQuery = true)
+    List<ItemWithBooking> findItemWithProjectedBookingByOwnerId(Long ownerId, Pageable pageable);
+
+    // Вещи владельца с id больше курсора с бронированиями из материализованной проекции
+    @Query(value = "select " +
+            "   it.id as id, " +
+            "   it.name as name, " +
+            "   it.description as description, " +
+            "   it.is_available as is_available, " +
+            "   it.owner_id as owner_id, " +
+            "   p.last_booking_id as last_booking_id, " +
+            "   p.last_booking_booker_id as last_booking_booker_id, " +
+            "   p.next_booking_id as next_booking_id, " +
+            "   p.next_booking_booker_id as next_booking_booker_id, " +
+            "   NULL as request_id " +
+            "from items as it " +
+            "left join item_booking_projections as p " +
+            "   on it.id = p.item_id " +
+            "where " +
+            "   it.owner_id = ?1 " +
+            "   and it.id > ?2 " +
+            "order by it.id " +
+            "limit ?3", nativeQuery = true)
+    List<ItemWithBooking> findItemWithProjectedBookingByOwnerIdAfter(Long ownerId, Long afterId, int limit);
 }
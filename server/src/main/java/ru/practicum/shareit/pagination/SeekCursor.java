@@ -0,0 +1,49 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+// Курсор постраничной выборки вида "<дата>,<id>": следующая страница начинается строго после этой пары
+// в порядке убывания даты и id. Пустой курсор означает первую страницу.
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SeekCursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    // Дата, заведомо больше любой даты в БД, для первой страницы
+    private static final LocalDateTime FIRST_PAGE_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    LocalDateTime date;
+    Long id;
+
+    public static SeekCursor of(LocalDateTime date, Long id) {
+        return new SeekCursor(date, id);
+    }
+
+    public static SeekCursor parse(String token) {
+        if (token == null || token.isBlank()) {
+            return new SeekCursor(FIRST_PAGE_DATE, Long.MAX_VALUE);
+        }
+        int separator = token.lastIndexOf(',');
+        if (separator < 0) {
+            throw new ValidationException("Некорректный курсор " + token + ", ожидается формат <дата>,<id>");
+        }
+        try {
+            return new SeekCursor(LocalDateTime.parse(token.substring(0, separator).trim()),
+                    Long.parseLong(token.substring(separator + 1).trim()));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new ValidationException("Некорректный курсор " + token + ", ожидается формат <дата>,<id>");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return date + "," + id;
+    }
+}
@@ -1,7 +1,9 @@
 package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.pagination.SeekCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
@@ -25,9 +27,21 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public Collection<ItemRequestDto> getAllItemRequests(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                                  @RequestParam  int from, @RequestParam int size) {
-        return itemRequestService.getAllItemRequests(userId, from, size);
+    public ResponseEntity<Collection<ItemRequestDto>> getAllItemRequests(
+            @RequestHeader(name = "X-Sharer-User-Id") Long userId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam int size,
+            @RequestParam(required = false) String after) {
+        if (after == null) {
+            return ResponseEntity.ok(itemRequestService.getAllItemRequests(userId, from, size));
+        }
+        Collection<ItemRequestDto> itemRequests = itemRequestService.getAllItemRequests(userId, after, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        itemRequests.stream()
+                .reduce((first, second) -> second)
+                .ifPresent(last -> response.header(SeekCursor.NEXT_CURSOR_HEADER,
+                        SeekCursor.of(last.getCreated(), last.getId()).toString()));
+        return response.body(itemRequests);
     }
 
     @GetMapping("/{requestId}")
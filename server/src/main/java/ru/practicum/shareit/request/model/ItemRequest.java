@@ -24,7 +24,7 @@ public class ItemRequest {
     Long id;
     @Column(nullable = false)
     String description;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "requestor_id")
     User requestor;
     @Column(name = "create_date")
@@ -11,5 +11,7 @@ public interface ItemRequestService {
 
     Collection<ItemRequestDto> getAllItemRequests(Long userId, int from, int size);
 
+    Collection<ItemRequestDto> getAllItemRequests(Long userId, String after, int size);
+
     ItemRequestDto getItemRequestById(Long userId, Long itemRequestId);
 }
@@ -1,60 +1,75 @@
 package ru.practicum.shareit.request.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.pagination.SeekCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.user.storage.UserLookup;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
 @RequiredArgsConstructor
+@Timed("shareit.service")
 @Service("itemRequestServiceImpl")
 public class ItemRequestServiceImpl implements ItemRequestService {
-    private final UserRepository userRepository;
+    private final UserLookup userLookup;
     private final ItemRequestRepository itemRequestRepository;
 
     @Override
     public ItemRequestDto addItemRequest(Long requestorId, ItemRequestDto itemRequestDto) {
-        User requestor = userRepository.findById(requestorId)
-                .orElseThrow(() -> new NotFoundException("Не найден пользователь с id " + requestorId));
+        User requestor = userLookup.getUser(requestorId);
         ItemRequest itemRequest = itemRequestRepository.save(ItemRequestMapper.mapToItemRequest(
                 itemRequestDto, requestor, LocalDateTime.now()));
         return ItemRequestMapper.mapToItemRequestDto(itemRequest);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<ItemRequestDto> getOwnItemRequests(Long requestorId) {
-        if (!userRepository.existsById(requestorId)) {
-            throw new NotFoundException("Не найден пользователь с id " + requestorId);
-        }
+        userLookup.checkExists(requestorId);
         Collection<ItemRequest> itemRequests = itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(
                 requestorId);
         return ItemRequestMapper.mapToItemRequestDto(itemRequests);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<ItemRequestDto> getAllItemRequests(Long userId, int from, int size) {
-        PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size, Sort.by("created").descending());
-        Iterable<ItemRequest> itemRequests = itemRequestRepository.findAllByRequestorIdNotOrderByCreatedDesc(
-                userId, pageRequest);
-        return ItemRequestMapper.mapToItemRequestDto(itemRequests);
+        PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size);
+        return getItemRequestsWithItems(itemRequestRepository.findIdsByRequestorIdNot(userId, pageRequest));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<ItemRequestDto> getAllItemRequests(Long userId, String after, int size) {
+        SeekCursor cursor = SeekCursor.parse(after);
+        return getItemRequestsWithItems(itemRequestRepository.findIdsByRequestorIdNotAfter(userId,
+                cursor.getDate(), cursor.getId(), PageRequest.ofSize(size)));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemRequestDto getItemRequestById(Long userId, Long itemRequestId) {
-        if (!userRepository.existsById(userId)) {
-            throw new NotFoundException("Не найден пользователь с id " + userId);
-        }
+        userLookup.checkExists(userId);
         ItemRequest itemRequest = itemRequestRepository.findById(itemRequestId).orElseThrow(
                 () -> new NotFoundException("Не найден запрос вещи с id " + itemRequestId));
         return ItemRequestMapper.mapToItemRequestDto(itemRequest);
     }
+
+    private Collection<ItemRequestDto> getItemRequestsWithItems(List<Long> itemRequestIds) {
+        if (itemRequestIds.isEmpty()) {
+            return List.of();
+        }
+        return ItemRequestMapper.mapToItemRequestDto(itemRequestRepository.findAllWithItemsByIdIn(itemRequestIds));
+    }
 }
@@ -3,18 +3,42 @@ package ru.practicum.shareit.request.storage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
+    // Условия по автору записаны явно: производный запрос соединял бы пользователей через left join
     @EntityGraph(attributePaths = {"items"})
+    @Query("select rq from ItemRequest as rq " +
+            "where rq.requestor.id = ?1 " +
+            "order by rq.created desc")
     Collection<ItemRequest> findAllByRequestorIdOrderByCreatedDesc(Long requestorId);
 
+    // Страница чужих запросов выбирается по id с LIMIT: при подгрузке вещей в том же запросе Hibernate
+    // не ограничивает выборку в SQL и отбирает страницу в памяти из всех строк
+    @Query("select rq.id from ItemRequest as rq " +
+            "where rq.requestor.id <> ?1 " +
+            "order by rq.created desc, rq.id desc")
+    List<Long> findIdsByRequestorIdNot(Long userId, Pageable pageable);
+
+    // Id чужих запросов после курсора
+    @Query("select rq.id from ItemRequest as rq " +
+            "where rq.requestor.id <> ?1 " +
+            "   and (rq.created < ?2 or (rq.created = ?2 and rq.id < ?3)) " +
+            "order by rq.created desc, rq.id desc")
+    List<Long> findIdsByRequestorIdNotAfter(Long userId, LocalDateTime afterCreated, Long afterId, Pageable pageable);
+
+    // Запросы страницы с вещами, в порядке страницы
     @EntityGraph(attributePaths = {"items"})
-    List<ItemRequest> findAllByRequestorIdNotOrderByCreatedDesc(Long userId, Pageable pageable);
+    @Query("select distinct rq from ItemRequest as rq " +
+            "where rq.id in ?1 " +
+            "order by rq.created desc, rq.id desc")
+    List<ItemRequest> findAllWithItemsByIdIn(Collection<Long> ids);
 
     @EntityGraph(attributePaths = {"items"})
     Optional<ItemRequest> findById(Long requestId);
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.user.dto;
 
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserView;
 
 import java.util.Collection;
 import java.util.stream.Collectors;
@@ -14,6 +15,14 @@ public class UserMapper {
                 .build();
     }
 
+    public static UserDto mapToUserDto(UserView user) {
+        return UserDto.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .build();
+    }
+
     public static User mapToUser(UserDto userDto) {
         return User.builder()
                 .id(userDto.getId())
@@ -22,7 +31,19 @@ public class UserMapper {
                 .build();
     }
 
+    public static User mapToUser(UserView user) {
+        return User.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .build();
+    }
+
     public static Collection<UserDto> mapToUserDto(Collection<User> users) {
         return users.stream().map(UserMapper::mapToUserDto).collect(Collectors.toList());
     }
+
+    public static Collection<UserDto> mapToUserDtoFromViews(Collection<UserView> users) {
+        return users.stream().map(UserMapper::mapToUserDto).collect(Collectors.toList());
+    }
 }
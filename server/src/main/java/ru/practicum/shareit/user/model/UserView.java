@@ -0,0 +1,16 @@
+package ru.practicum.shareit.user.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+// Пользователь для списков, строится запросом без загрузки сущности
+@RequiredArgsConstructor
+@Getter
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class UserView {
+    Long id;
+    String name;
+    String email;
+}
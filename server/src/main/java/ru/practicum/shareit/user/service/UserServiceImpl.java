@@ -1,20 +1,32 @@
 package ru.practicum.shareit.user.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.BookingStateCounters;
 import ru.practicum.shareit.exception.AlreadyExistException;
-import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserLookup;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.util.Collection;
 
 @RequiredArgsConstructor
+@Timed("shareit.service")
 @Service("userServiceImpl")
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final UserLookup userLookup;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookingStateCounters bookingStateCounters;
+    private final ItemSearchEngine itemSearchEngine;
 
     @Override
     public UserDto addUser(UserDto userDto) {
@@ -23,43 +35,53 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    // В закэшированных вещах хранится только id владельца, поэтому вещи из кэша не удаляются
+    @CacheEvict(cacheNames = "users", key = "#userId")
     public UserDto updateUser(Long userId, UserDto userDto) {
-        if (userRepository.existsByEmailAndIdIsNot(userDto.getEmail(), userId)) {
+        User foundUser = userLookup.getUser(userId);
+        // Занятость email проверяется запросом, только если email меняется
+        if (userDto.getEmail() != null && !userDto.getEmail().equals(foundUser.getEmail())
+                && userRepository.existsByEmailAndIdIsNot(userDto.getEmail(), userId)) {
             throw new AlreadyExistException("Пользователь уже существует с email " + userDto.getEmail());
         }
-        User foundUser = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Не найден пользователь с id " + userId));
 
         User user = UserMapper.mapToUser(userDto);
 
-        if (user.getName() != null) {
-            foundUser.setName(user.getName());
-        }
-        if (user.getEmail() != null) {
-            foundUser.setEmail(user.getEmail());
-        }
+        User updatedUser = User.builder()
+                .id(foundUser.getId())
+                .name(user.getName() != null ? user.getName() : foundUser.getName())
+                .email(user.getEmail() != null ? user.getEmail() : foundUser.getEmail())
+                .build();
 
-        return UserMapper.mapToUserDto(userRepository.save(foundUser));
+        userLookup.forget(userId);
+        return UserMapper.mapToUserDto(userRepository.save(updatedUser));
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "users", key = "#userId"),
+            @CacheEvict(cacheNames = "userExists", key = "#userId"),
+            @CacheEvict(cacheNames = "items", allEntries = true)
+    })
     public void deleteUser(Long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new NotFoundException("Не найден пользователь с id " + userId);
-        }
+        userLookup.checkExists(userId);
         userRepository.deleteById(userId);
+        userLookup.forget(userId);
+        // Вместе с пользователем каскадно удаляются его вещи и бронирования
+        bookingIntervalIndex.evictAll();
+        bookingStateCounters.evictAll();
+        itemSearchEngine.removeAllByOwnerId(userId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<UserDto> getAllUsers() {
-        Collection<User> users = userRepository.findAll();
-        return UserMapper.mapToUserDto(users);
+        return UserMapper.mapToUserDtoFromViews(userRepository.findAllViews());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDto getUserById(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Не найден пользователь с id " + userId));
-        return UserMapper.mapToUserDto(user);
+        return UserMapper.mapToUserDto(userLookup.getUser(userId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.user.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserView;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Поиск пользователя из X-Sharer-User-Id для всех сервисов. Между запросами пользователей хранят кэши users
+// и userExists, а в пределах HTTP-запроса найденные пользователи запоминаются в его атрибутах: проверка
+// и загрузка одного пользователя в разных сервисах запроса обращаются к кэшу и БД один раз.
+// Вне HTTP-запросов каждый вызов идет в репозиторий. Запоминаются неизменяемые представления, каждый вызов
+// получает свой экземпляр пользователя
+@RequiredArgsConstructor
+@Component
+public class UserLookup {
+    private static final String REQUEST_USERS_ATTRIBUTE = UserLookup.class.getName() + ".users";
+
+    private final UserRepository userRepository;
+
+    public User getUser(Long userId) {
+        Map<Long, UserView> requestUsers = getRequestUsers();
+        UserView user = requestUsers != null ? requestUsers.get(userId) : null;
+        if (user == null) {
+            user = userRepository.findViewById(userId).orElseThrow(() -> notFound(userId));
+            if (requestUsers != null) {
+                requestUsers.put(userId, user);
+            }
+        }
+        return UserMapper.mapToUser(user);
+    }
+
+    // Существующий, но не загруженный пользователь запоминается без значения
+    public void checkExists(Long userId) {
+        Map<Long, UserView> requestUsers = getRequestUsers();
+        if (requestUsers != null && requestUsers.containsKey(userId)) {
+            return;
+        }
+        if (!userRepository.existsById(userId)) {
+            throw notFound(userId);
+        }
+        if (requestUsers != null) {
+            requestUsers.put(userId, null);
+        }
+    }
+
+    // Вызывается при изменении и удалении пользователя
+    public void forget(Long userId) {
+        Map<Long, UserView> requestUsers = getRequestUsers();
+        if (requestUsers != null) {
+            requestUsers.remove(userId);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, UserView> getRequestUsers() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<Long, UserView> requestUsers = (Map<Long, UserView>) attributes.getAttribute(REQUEST_USERS_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        if (requestUsers == null) {
+            requestUsers = new HashMap<>(4);
+            attributes.setAttribute(REQUEST_USERS_ATTRIBUTE, requestUsers, RequestAttributes.SCOPE_REQUEST);
+        }
+        return requestUsers;
+    }
+
+    private static NotFoundException notFound(Long userId) {
+        return new NotFoundException("Не найден пользователь с id " + userId);
+    }
+}
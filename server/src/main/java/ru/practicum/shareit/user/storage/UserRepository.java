@@ -1,8 +1,32 @@
 package ru.practicum.shareit.user.storage;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserView;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmailAndIdIsNot(String email, Long id);
+
+    // Кэшируются неизменяемые представления найденных пользователей, а не сущности: экземпляр в кэше общий
+    // для всех потоков. Отсутствие не запоминается
+    @Cacheable(cacheNames = "users", key = "#p0", unless = "#result == null")
+    @Query("select new ru.practicum.shareit.user.model.UserView(u.id, u.name, u.email) " +
+            "from User as u " +
+            "where u.id = ?1")
+    Optional<UserView> findViewById(Long id);
+
+    @Cacheable(cacheNames = "userExists", key = "#p0", unless = "!#result")
+    @Override
+    boolean existsById(Long id);
+
+    // Все пользователи для списка без загрузки сущностей
+    @Query("select new ru.practicum.shareit.user.model.UserView(u.id, u.name, u.email) " +
+            "from User as u " +
+            "order by u.id")
+    List<UserView> findAllViews();
 }
@@ -1,9 +1,3 @@
-DROP TABLE IF EXISTS comments;
-DROP TABLE IF EXISTS bookings;
-DROP TABLE IF EXISTS items;
-DROP TABLE IF EXISTS requests;
-DROP TABLE IF EXISTS users;
-
 CREATE TABLE IF NOT EXISTS users (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     name VARCHAR(255) NOT NULL,
@@ -47,4 +41,15 @@ CREATE TABLE IF NOT EXISTS comments (
     author_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
     create_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     CONSTRAINT pk_comment PRIMARY KEY (id)
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS item_booking_projections (
+    item_id BIGINT REFERENCES items (id) ON DELETE CASCADE,
+    last_booking_id BIGINT REFERENCES bookings (id) ON DELETE SET NULL,
+    last_booking_booker_id BIGINT,
+    last_booking_start TIMESTAMP WITHOUT TIME ZONE,
+    next_booking_id BIGINT REFERENCES bookings (id) ON DELETE SET NULL,
+    next_booking_booker_id BIGINT,
+    next_booking_start TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_item_booking_projection PRIMARY KEY (item_id)
+);
@@ -0,0 +1,13 @@
+-- Бронирования автора: фильтр по автору, сортировка и курсор по дате начала и id
+CREATE INDEX IF NOT EXISTS bookings_booker_id_start_date_idx ON bookings (booker_id, start_date, id);
+-- Бронирования вещи по статусу: последнее и следующее бронирование, интервалы, завершенные бронирования автора
+CREATE INDEX IF NOT EXISTS bookings_item_id_status_start_date_idx ON bookings (item_id, status, start_date);
+-- Вещи владельца и вещи, созданные по запросу
+CREATE INDEX IF NOT EXISTS items_owner_id_idx ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS items_request_id_idx ON items (request_id);
+-- Отзывы к вещам от новых к старым
+CREATE INDEX IF NOT EXISTS comments_item_id_create_date_idx ON comments (item_id, create_date, id);
+-- Запросы автора от новых к старым
+CREATE INDEX IF NOT EXISTS requests_requestor_id_create_date_idx ON requests (requestor_id, create_date, id);
+-- Каскадное удаление пользователя находит его отзывы по индексу
+CREATE INDEX IF NOT EXISTS comments_author_id_idx ON comments (author_id);
@@ -0,0 +1,3 @@
+-- Идентификаторы бронирований выдаются последовательностью блоками по 50, чтобы Hibernate мог вставлять
+-- бронирования пакетами. Шаг должен совпадать с allocationSize в сущности Booking
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
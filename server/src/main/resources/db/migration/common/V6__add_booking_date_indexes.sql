@@ -0,0 +1,3 @@
+-- Перенос счетчиков бронирований ищет бронирования, начавшиеся или закончившиеся с прошлого переноса
+CREATE INDEX IF NOT EXISTS bookings_start_date_idx ON bookings (start_date);
+CREATE INDEX IF NOT EXISTS bookings_end_date_idx ON bookings (end_date);
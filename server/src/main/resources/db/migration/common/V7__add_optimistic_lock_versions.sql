@@ -0,0 +1,4 @@
+-- Версии строк для оптимистической блокировки: Hibernate проверяет версию при обновлении и увеличивает ее.
+-- Вставки в обход Hibernate получают версию 0 по умолчанию
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
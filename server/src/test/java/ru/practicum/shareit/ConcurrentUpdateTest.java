@@ -0,0 +1,239 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+
+// Одновременные изменения одних и тех же строк из нескольких потоков через контроллеры, как в работающем
+// сервере: с открытой на весь запрос сессией Hibernate. Транзакции теста нет, каждый запрос работает в своих
+// транзакциях и видит только зафиксированные изменения
+@Slf4j
+@SpringBootTest(properties = "logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ConcurrentUpdateTest {
+    private static final int THREADS = 8;
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+    private final UserService userService;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    private UserDto owner;
+    private UserDto booker;
+    private ItemDto item;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = userService.addUser(makeUserDto("owner"));
+        booker = userService.addUser(makeUserDto("booker"));
+        item = itemService.addItem(owner.getId(), makeItemDto("name", "description"));
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+        userService.deleteUser(owner.getId());
+        userService.deleteUser(booker.getId());
+    }
+
+    // Без проверки версии оба потока прочитали бы бронирование в ожидании и оба подтвердили бы его
+    @Test
+    void approveBookingOnce() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            BookingDto booking = bookingService.addBooking(booker.getId(), makeBookingDto(round));
+
+            List<Outcome> outcomes = runConcurrently(THREADS, index -> patch("/bookings/" + booking.getId())
+                    .param("approved", "true"));
+
+            assertThat(count(outcomes, Outcome.SUCCESS), equalTo(1));
+            assertThat(count(outcomes, Outcome.SUCCESS) + count(outcomes, Outcome.REJECTED)
+                    + count(outcomes, Outcome.CONFLICT), equalTo(THREADS));
+            assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getStatus(),
+                    equalTo(BookingStatus.APPROVED));
+        }
+    }
+
+    // Каждый раунд потоки одновременно подтверждают разные бронирования вещи на одно и то же время. Без блокировки
+    // вещи несколько потоков проверили бы пересечения до того, как подтверждение другого попало в индекс
+    @Test
+    void approveOneOfOverlappingBookings() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            List<Long> bookingIds = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                bookingIds.add(bookingService.addBooking(booker.getId(), makeBookingDto(round)).getId());
+            }
+
+            List<Outcome> outcomes = runConcurrently(THREADS, index -> patch("/bookings/" + bookingIds.get(index))
+                    .param("approved", "true"));
+
+            assertThat(count(outcomes, Outcome.SUCCESS), equalTo(1));
+            assertThat(count(outcomes, Outcome.REJECTED), equalTo(THREADS - 1));
+            assertThat(bookingRepository.findAllById(bookingIds).stream()
+                    .filter(booking -> booking.getStatus() == BookingStatus.APPROVED)
+                    .count(), equalTo(1L));
+        }
+    }
+
+    // Каждый раунд два потока одновременно меняют разные поля вещи. Без проверки версии один из них
+    // сохранил бы прочитанное до изменения значение второго поля
+    @Test
+    void updateItemWithoutLostUpdates() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            String name = "name" + round;
+            String description = "description" + round;
+            List<Outcome> outcomes = runConcurrently(2, update -> updateItem(update == 0
+                    ? makeItemDto(name, null)
+                    : makeItemDto(null, description)));
+
+            assertThat(count(outcomes, Outcome.SUCCESS), equalTo(2));
+            Item updated = itemRepository.findById(item.getId()).orElseThrow();
+            assertThat(updated.getName(), equalTo(name));
+            assertThat(updated.getDescription(), equalTo(description));
+            assertThat(updated.getVersion(), equalTo(2L * (round + 1)));
+        }
+    }
+
+    // Все потоки меняют одну вещь. Каждое успешное изменение увеличивает версию ровно на один, поэтому
+    // итоговая версия равна числу успешных изменений. Пропускная способность при конкуренции пишется в лог
+    @Test
+    void updateItemUnderContention() throws Exception {
+        int updatesPerThread = 50;
+
+        long startNanos = System.nanoTime();
+        List<Outcome> outcomes = runConcurrently(THREADS * updatesPerThread, update -> updateItem(update % 2 == 0
+                ? makeItemDto("name" + update, null)
+                : makeItemDto(null, "description" + update)));
+        long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), 1);
+
+        int successes = count(outcomes, Outcome.SUCCESS);
+        int conflicts = count(outcomes, Outcome.CONFLICT);
+        log.info("Updates under contention: {} threads, {} updates, {} succeeded, {} conflicts, {} ms, {} per second",
+                THREADS, outcomes.size(), successes, conflicts, elapsedMillis, successes * 1000L / elapsedMillis);
+
+        assertThat(successes, greaterThan(0));
+        assertThat(successes + conflicts, equalTo(outcomes.size()));
+        assertThat(itemRepository.findById(item.getId()).orElseThrow().getVersion(), equalTo((long) successes));
+    }
+
+    // Запросы стартуют одновременно, по числу потоков пула за раз. Запрос получает свой номер
+    private List<Outcome> runConcurrently(int requests, IntFunction<MockHttpServletRequestBuilder> request)
+            throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Outcome>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            MockHttpServletRequestBuilder builder = request.apply(i).header("X-Sharer-User-Id", owner.getId());
+            futures.add(executor.submit(() -> {
+                start.await();
+                int status = mockMvc.perform(builder).andReturn().getResponse().getStatus();
+                return Outcome.of(HttpStatus.valueOf(status));
+            }));
+        }
+        start.countDown();
+
+        List<Outcome> outcomes = new ArrayList<>(requests);
+        for (Future<Outcome> future : futures) {
+            outcomes.add(future.get(30, TimeUnit.SECONDS));
+        }
+        return outcomes;
+    }
+
+    private MockHttpServletRequestBuilder updateItem(ItemDto itemDto) {
+        try {
+            return patch("/items/" + item.getId())
+                    .content(objectMapper.writeValueAsString(itemDto))
+                    .characterEncoding(StandardCharsets.UTF_8)
+                    .contentType(MediaType.APPLICATION_JSON);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int count(List<Outcome> outcomes, Outcome outcome) {
+        return (int) outcomes.stream().filter(outcome::equals).count();
+    }
+
+    private UserDto makeUserDto(String name) {
+        return UserDto.builder()
+                .name(name)
+                .email(name + "@concurrent.ru")
+                .build();
+    }
+
+    private ItemDto makeItemDto(String name, String description) {
+        return ItemDto.builder()
+                .name(name)
+                .description(description)
+                .available(true)
+                .build();
+    }
+
+    private BookingDto makeBookingDto(int index) {
+        LocalDateTime start = LocalDateTime.now().plusDays(index + 1);
+        return BookingDto.builder()
+                .itemId(item.getId())
+                .start(start)
+                .end(start.plusHours(1))
+                .build();
+    }
+
+    private enum Outcome {
+        SUCCESS, REJECTED, CONFLICT;
+
+        static Outcome of(HttpStatus status) {
+            switch (status) {
+                case OK:
+                    return SUCCESS;
+                case BAD_REQUEST:
+                    return REJECTED;
+                case CONFLICT:
+                    return CONFLICT;
+                default:
+                    throw new IllegalStateException("Unexpected status " + status);
+            }
+        }
+    }
+}
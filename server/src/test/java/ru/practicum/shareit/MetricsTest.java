@@ -0,0 +1,62 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Реестр метрик общий для тестов с тем же контекстом, поэтому проверяется прирост счетчиков
+@SpringBootTest(properties = "shareit.search.engine=like")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class MetricsTest {
+    private final MockMvc mockMvc;
+    private final EntityManager em;
+    private final MeterRegistry meterRegistry;
+
+    @Test
+    void serviceAndRepositoryCallsAreTimed() throws Exception {
+        User booker = new User();
+        booker.setName("booker");
+        booker.setEmail("booker@test.ru");
+        em.persist(booker);
+
+        long serviceCalls = count("shareit.service", "method", "getAllBookingsByBookerId", "state", "FUTURE");
+        long userServiceCalls = count("shareit.service", "method", "getUserById", "state", "none");
+        long repositoryCalls = count("spring.data.repository.invocations", "repository", "BookingRepository");
+
+        mockMvc.perform(get("/bookings").param("state", "FUTURE").param("size", "10")
+                        .header("X-Sharer-User-Id", booker.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/{userId}", booker.getId()))
+                .andExpect(status().isOk());
+
+        assertThat(count("shareit.service", "method", "getAllBookingsByBookerId", "state", "FUTURE"),
+                equalTo(serviceCalls + 1));
+        assertThat(count("shareit.service", "method", "getUserById", "state", "none"),
+                equalTo(userServiceCalls + 1));
+        assertThat(count("spring.data.repository.invocations", "repository", "BookingRepository"),
+                greaterThan(repositoryCalls));
+    }
+
+    private long count(String name, String... tags) {
+        return meterRegistry.find(name).tags(tags).timers().stream().mapToLong(Timer::count).sum();
+    }
+}
@@ -0,0 +1,202 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.BookingHistoryRecord;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.comment.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemWithBookingRepository;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+// Планы запросов репозиториев на H2: SQL каждого запроса перехватывается у Hibernate и передается в explain,
+// таблица, по которой идет отбор, не должна читаться целиком. H2 сам индексирует внешние ключи и выбирает
+// эти индексы, поэтому имена индексов из миграций проверяются отдельно
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "ru.practicum.shareit.QueryPlanTest$SqlCapture")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class QueryPlanTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final ItemWithBookingRepository itemWithBookingRepository;
+    private final CommentRepository commentRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final UserRepository userRepository;
+
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private final PageRequest page = PageRequest.of(0, 10);
+
+    @BeforeEach
+    void beforeEach() {
+        SqlCapture.STATEMENTS.clear();
+    }
+
+    @Test
+    void migrationsCreateQueryIndexes() {
+        List<String> indexes = jdbcTemplate.queryForList("select lower(index_name) " +
+                "from information_schema.indexes where table_schema = 'PUBLIC'", String.class);
+
+        assertThat(indexes, hasItems("bookings_booker_id_start_date_idx", "bookings_item_id_status_start_date_idx",
+                "items_owner_id_idx", "items_request_id_idx", "comments_item_id_create_date_idx",
+                "comments_author_id_idx", "requests_requestor_id_create_date_idx", "bookings_start_date_idx",
+                "bookings_end_date_idx"));
+    }
+
+    @Test
+    void bookingRepositoryQueriesUseIndexes() {
+        assertIndexed(() -> bookingRepository.findByIdAndBookerIdOrItemOwnerId(1L, 1L, 1L), "BOOKINGS");
+
+        assertIndexed(() -> bookingRepository.findAllByBookerIdOrderByStartDesc(1L, page), "BOOKINGS");
+        assertIndexed(() -> bookingRepository.findCurrentBookingsByBookerId(1L, now, now, page), "BOOKINGS");
+        assertIndexed(() -> bookingRepository.findPastBookingsByBookerId(1L, now, page), "BOOKINGS");
+        assertIndexed(() -> bookingRepository.findFutureBookingsByBookerId(1L, now, page), "BOOKINGS");
+        assertIndexed(() -> bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(1L, BookingStatus.WAITING,
+                page), "BOOKINGS");
+
+        assertIndexed(() -> bookingRepository.findAllByItemOwnerIdOrderByStartDesc(1L, page), "BOOKINGS", "ITEMS");
+        assertIndexed(() -> bookingRepository.findCurrentBookingsByItemOwnerId(1L, now, now, page),
+                "BOOKINGS", "ITEMS");
+        assertIndexed(() -> bookingRepository.findPastBookingsByItemOwnerId(1L, now, page), "BOOKINGS", "ITEMS");
+        assertIndexed(() -> bookingRepository.findFutureBookingsByItemOwnerId(1L, now, page), "BOOKINGS", "ITEMS");
+        assertIndexed(() -> bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(1L,
+                BookingStatus.WAITING, page), "BOOKINGS", "ITEMS");
+
+        assertIndexed(() -> bookingRepository.findAllByBookerIdAfter(1L, now, 1L, page), "BOOKINGS");
+        assertIndexed(() -> bookingRepository.findCurrentBookingsByBookerIdAfter(1L, now, now, 1L, page),
+                "BOOKINGS");
+        assertIndexed(() -> bookingRepository.findPastBookingsByBookerIdAfter(1L, now, now, 1L, page), "BOOKINGS");
+        assertIndexed(() -> bookingRepository.findFutureBookingsByBookerIdAfter(1L, now, now, 1L, page),
+                "BOOKINGS");
+        assertIndexed(() -> bookingRepository.findAllByBookerIdAndStatusAfter(1L, BookingStatus.WAITING, now, 1L,
+                page), "BOOKINGS");
+
+        assertIndexed(() -> bookingRepository.findAllByItemOwnerIdAfter(1L, now, 1L, page), "BOOKINGS", "ITEMS");
+        assertIndexed(() -> bookingRepository.findCurrentBookingsByItemOwnerIdAfter(1L, now, now, 1L, page),
+                "BOOKINGS", "ITEMS");
+        assertIndexed(() -> bookingRepository.findPastBookingsByItemOwnerIdAfter(1L, now, now, 1L, page),
+                "BOOKINGS", "ITEMS");
+        assertIndexed(() -> bookingRepository.findFutureBookingsByItemOwnerIdAfter(1L, now, now, 1L, page),
+                "BOOKINGS", "ITEMS");
+        assertIndexed(() -> bookingRepository.findAllByItemOwnerIdAndStatusAfter(1L, BookingStatus.WAITING, now, 1L,
+                page), "BOOKINGS", "ITEMS");
+
+        assertIndexed(() -> bookingRepository.existsByItemIdAndBookerIdAndStatusAndEndLessThan(1L, 1L,
+                BookingStatus.APPROVED, now), "BOOKINGS");
+        assertIndexed(() -> bookingRepository.findLastApprovedBookingByItemId(1L, now), "BOOKINGS");
+        assertIndexed(() -> bookingRepository.findNextApprovedBookingByItemId(1L, now), "BOOKINGS");
+        assertIndexed(() -> bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(1L, BookingStatus.APPROVED,
+                now), "BOOKINGS");
+
+        assertIndexed(() -> bookingRepository.countStatesByBookerId(1L, now, BookingStatus.WAITING,
+                BookingStatus.REJECTED), "BOOKINGS");
+        assertIndexed(() -> bookingRepository.countStatesByItemOwnerId(1L, now, BookingStatus.WAITING,
+                BookingStatus.REJECTED), "BOOKINGS", "ITEMS");
+        assertIndexed(() -> bookingRepository.findSchedulesByStartBetween(now, now.plusMinutes(1)), "BOOKINGS");
+        assertIndexed(() -> bookingRepository.findSchedulesByEndBetween(now, now.plusMinutes(1)), "BOOKINGS");
+        assertIndexed(() -> {
+            try (Stream<BookingHistoryRecord> records = bookingRepository.streamAllByItemOwnerId(1L)) {
+                records.forEach(record -> { });
+            }
+        }, "BOOKINGS", "ITEMS");
+    }
+
+    // Поиск по подстроке в H2 всегда читает вещи целиком, в PostgreSQL его обслуживают триграммные индексы
+    @Test
+    void itemRepositoryQueriesUseIndexes() {
+        assertIndexed(() -> itemRepository.existsByIdAndOwnerId(1L, 1L), "ITEMS");
+        assertIndexed(() -> itemRepository.findByIdAndOwnerId(1L, 1L), "ITEMS");
+        assertIndexed(() -> itemRepository.deleteByIdAndOwnerId(1L, 1L), "ITEMS");
+        assertIndexed(() -> itemRepository.deleteAllByOwnerId(1L), "ITEMS");
+    }
+
+    @Test
+    void itemWithBookingRepositoryQueriesUseIndexes() {
+        assertIndexed(() -> itemWithBookingRepository.findItemWithBookingById(1L, 1L, now), "ITEMS", "BOOKINGS");
+        assertIndexed(() -> itemWithBookingRepository.findItemWithBookingByOwnerId(1L, now, page),
+                "ITEMS", "BOOKINGS");
+        assertIndexed(() -> itemWithBookingRepository.findItemWithProjectedBookingByOwnerId(1L, page),
+                "ITEMS", "ITEM_BOOKING_PROJECTIONS");
+        assertIndexed(() -> itemWithBookingRepository.findItemWithProjectedBookingByOwnerIdAfter(1L, 1L, 10),
+                "ITEMS", "ITEM_BOOKING_PROJECTIONS");
+    }
+
+    @Test
+    void commentRepositoryQueriesUseIndexes() {
+        assertIndexed(() -> commentRepository.findItemCommentsByItemIdIn(List.of(1L, 2L)), "COMMENTS");
+        assertIndexed(() -> commentRepository.findLatestItemCommentsByItemIdIn(List.of(1L, 2L), 3), "COMMENTS");
+    }
+
+    // Чужие запросы отбираются по неравенству автора, такой отбор индекс не сужает
+    @Test
+    void itemRequestRepositoryQueriesUseIndexes() {
+        assertIndexed(() -> itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(1L), "REQUESTS", "ITEMS");
+        assertIndexed(() -> itemRequestRepository.findById(1L), "REQUESTS", "ITEMS");
+        assertIndexed(() -> itemRequestRepository.findIdsByRequestorIdNot(1L, page));
+        assertIndexed(() -> itemRequestRepository.findIdsByRequestorIdNotAfter(1L, now, 1L, page));
+        assertIndexed(() -> itemRequestRepository.findAllWithItemsByIdIn(List.of(1L, 2L)), "REQUESTS", "ITEMS");
+    }
+
+    @Test
+    void userRepositoryQueriesUseIndexes() {
+        assertIndexed(() -> userRepository.existsByEmailAndIdIsNot("user@test.ru", 1L), "USERS");
+    }
+
+    private void assertIndexed(Runnable query, String... tables) {
+        SqlCapture.STATEMENTS.clear();
+        query.run();
+        List<String> statements = new ArrayList<>(SqlCapture.STATEMENTS);
+
+        assertThat(statements, not(empty()));
+        for (String sql : statements) {
+            String plan = explain(sql);
+            for (String table : tables) {
+                assertThat(sql, plan, not(containsString("PUBLIC." + table + ".tableScan")));
+            }
+        }
+    }
+
+    // Параметры не влияют на выбор индекса в H2, поэтому план строится с пустыми значениями
+    private String explain(String sql) {
+        return jdbcTemplate.execute("explain " + sql, (PreparedStatement statement) -> {
+            int parameterCount = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameterCount; i++) {
+                statement.setObject(i, null);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        });
+    }
+
+    public static class SqlCapture implements StatementInspector {
+        private static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (!sql.startsWith("insert")) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
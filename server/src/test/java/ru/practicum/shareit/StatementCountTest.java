@@ -0,0 +1,151 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Число запросов к БД на чтение через контроллеры. Данных несколько строк с разными вещами, авторами
+// и запросами, поэтому догрузка связей по одной строке увеличила бы число запросов. Кэши и контекст
+// сохранения очищаются перед каждым запросом
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "shareit.search.engine=like",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class StatementCountTest {
+    private static final int ROWS = 3;
+
+    private final MockMvc mockMvc;
+    private final EntityManager em;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheManager cacheManager;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private User owner;
+    private User booker;
+    private Booking booking;
+    private Item item;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = persistUser("owner");
+        booker = persistUser("booker");
+        for (int i = 0; i < ROWS; i++) {
+            User requestor = persistUser("requestor" + i);
+            ItemRequest request = persist(ItemRequest.builder()
+                    .description("request" + i)
+                    .requestor(requestor)
+                    .created(now.minusDays(1))
+                    .build());
+            item = persist(Item.builder()
+                    .name("item" + i)
+                    .description("item" + i)
+                    .available(true)
+                    .owner(owner)
+                    .request(request)
+                    .build());
+            User itemBooker = persistUser("booker" + i);
+            persist(makeBooking(item, itemBooker, now.minusDays(2), now.minusDays(1)));
+            persist(Comment.builder()
+                    .text("comment" + i)
+                    .item(item)
+                    .author(itemBooker)
+                    .created(now.minusHours(1))
+                    .build());
+            booking = persist(makeBooking(item, booker, now.plusDays(i + 1), now.plusDays(i + 2)));
+        }
+    }
+
+    @Test
+    void bookingEndpoints() throws Exception {
+        assertThat(countStatements(get("/bookings/" + booking.getId()), booker), equalTo(2L));
+        assertThat(countStatements(bookings("/bookings", "ALL"), booker), equalTo(2L));
+        assertThat(countStatements(bookings("/bookings", "FUTURE"), booker), equalTo(2L));
+        assertThat(countStatements(bookings("/bookings/owner", "ALL"), owner), equalTo(2L));
+        assertThat(countStatements(bookings("/bookings/owner", "PAST"), owner), equalTo(2L));
+        assertThat(countStatements(bookings("/bookings/owner", "WAITING"), owner), equalTo(2L));
+    }
+
+    @Test
+    void itemEndpoints() throws Exception {
+        assertThat(countStatements(get("/items/" + item.getId()), owner), equalTo(3L));
+        assertThat(countStatements(get("/items").param("size", "10"), owner), equalTo(3L));
+        assertThat(countStatements(get("/items/search").param("text", "item").param("size", "10"), owner),
+                equalTo(1L));
+    }
+
+    // Страница запросов выбирается по id с LIMIT, затем запросы страницы загружаются вместе с вещами
+    @Test
+    void itemRequestEndpoints() throws Exception {
+        assertThat(countStatements(get("/requests/all").param("size", "10"), owner), equalTo(2L));
+        assertThat(countStatements(get("/requests/all").param("after", now.plusDays(1) + ",0")
+                .param("size", "10"), owner), equalTo(2L));
+    }
+
+    private MockHttpServletRequestBuilder bookings(String path, String state) {
+        return get(path).param("state", state).param("size", "10");
+    }
+
+    private long countStatements(MockHttpServletRequestBuilder request, User user) throws Exception {
+        em.flush();
+        em.clear();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(request.header("X-Sharer-User-Id", user.getId()))
+                .andExpect(status().isOk());
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User persistUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@test.ru");
+        return persist(user);
+    }
+
+    private Booking makeBooking(Item item, User booker, LocalDateTime start, LocalDateTime end) {
+        return Booking.builder()
+                .start(start)
+                .end(end)
+                .item(item)
+                .booker(booker)
+                .status(BookingStatus.WAITING)
+                .build();
+    }
+
+    private <T> T persist(T entity) {
+        em.persist(entity);
+        return entity;
+    }
+}
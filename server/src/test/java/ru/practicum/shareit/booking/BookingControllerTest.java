@@ -8,12 +8,16 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStateCountsDto;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -22,8 +26,13 @@ import java.util.List;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -60,6 +69,35 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(BookingStatus.WAITING.toString())));
     }
 
+    @Test
+    void addBookings() throws Exception {
+        BookingBatchResultDto createdResult = BookingBatchResultDto.builder()
+                .index(0)
+                .status(201)
+                .booking(bookingDto)
+                .build();
+        BookingBatchResultDto failedResult = BookingBatchResultDto.builder()
+                .index(1)
+                .status(404)
+                .error("Не найдена вещь с id 999")
+                .build();
+        when(bookingService.addBookings(any(), any()))
+                .thenReturn(List.of(createdResult, failedResult));
+
+        mockMvc.perform(post("/bookings/batch")
+                        .content(objectMapper.writeValueAsString(List.of(bookingDto, bookingDto)))
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status", is(201)))
+                .andExpect(jsonPath("$[0].booking.id", is(bookingDto.getId()), Long.class))
+                .andExpect(jsonPath("$[1].index", is(1)))
+                .andExpect(jsonPath("$[1].status", is(404)))
+                .andExpect(jsonPath("$[1].error", is(failedResult.getError())));
+    }
+
     @Test
     void approvedBooking() throws Exception {
         BookingDto approvingBookingDto = makeBookingDto(1L, LocalDateTime.now().plusMinutes(5),
@@ -81,6 +119,76 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(BookingStatus.APPROVED.toString())));
     }
 
+    @Test
+    void approveBookings() throws Exception {
+        BookingBatchResultDto approvedResult = BookingBatchResultDto.builder()
+                .index(0)
+                .status(200)
+                .booking(bookingDto)
+                .build();
+        when(bookingService.approveBookings(any(), any(), any()))
+                .thenReturn(List.of(approvedResult));
+
+        mockMvc.perform(patch("/bookings/batch")
+                        .content(objectMapper.writeValueAsString(List.of(1L)))
+                        .header("X-Sharer-User-Id", 1)
+                        .param("approved", "true")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].index", is(0)))
+                .andExpect(jsonPath("$[0].status", is(200)))
+                .andExpect(jsonPath("$[0].booking.id", is(bookingDto.getId()), Long.class));
+    }
+
+    @Test
+    void getBookingStateCountsByOwnerId() throws Exception {
+        when(bookingService.getBookingStateCountsByItemOwnerId(any()))
+                .thenReturn(BookingStateCountsDto.builder()
+                        .all(3L)
+                        .current(1L)
+                        .past(1L)
+                        .future(1L)
+                        .waiting(2L)
+                        .rejected(1L)
+                        .build());
+
+        mockMvc.perform(get("/bookings/owner/summary")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all", is(3)))
+                .andExpect(jsonPath("$.waiting", is(2)))
+                .andExpect(jsonPath("$.rejected", is(1)));
+    }
+
+    @Test
+    void exportAllBookingsByOwnerId() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(1);
+            outputStream.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(bookingService).exportAllBookingsByItemOwnerId(any(), any());
+
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    void exportAllBookingsByWrongOwnerId() throws Exception {
+        doThrow(new NotFoundException("Не найден пользователь с id 999"))
+                .when(bookingService).checkItemOwnerExists(any());
+
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 999))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", is("Не найден пользователь с id 999")));
+    }
+
     @Test
     void getBookingById() throws Exception {
         when(bookingService.getBookingById(any(), any()))
@@ -138,6 +246,24 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$[0].status", is(BookingStatus.WAITING.toString())));
     }
 
+    @Test
+    void getAllBookingsByBookerIdWithCursor() throws Exception {
+        when(bookingService.getAllBookingsByBookerId(any(), any(), anyString(), anyInt()))
+                .thenReturn(List.of(bookingDto));
+
+        mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .param("state", "ALL")
+                        .param("after", "")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", bookingDto.getStart() + "," + bookingDto.getId()))
+                .andExpect(jsonPath("$[0].id", is(bookingDto.getId()), Long.class));
+    }
+
     private UserDto makeUserDto(Long id, String name, String email) {
         return UserDto.builder()
                 .id(id)
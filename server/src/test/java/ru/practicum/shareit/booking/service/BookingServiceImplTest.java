@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
@@ -18,8 +19,15 @@ import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
 import javax.transaction.Transactional;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -34,10 +42,12 @@ public class BookingServiceImplTest {
     private final ItemService itemService;
     private final UserService userService;
 
-    private final LocalDateTime dateMinus10 = LocalDateTime.now().minusMinutes(10);
-    private final LocalDateTime dateMinus5 = LocalDateTime.now().minusMinutes(5);
-    private final LocalDateTime datePlus10 = LocalDateTime.now().plusMinutes(10);
-    private final LocalDateTime datePlus5 = LocalDateTime.now().plusMinutes(5);
+    // Списки бронирований читаются из БД, где время хранится с точностью до микросекунд
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    private final LocalDateTime dateMinus10 = now.minusMinutes(10);
+    private final LocalDateTime dateMinus5 = now.minusMinutes(5);
+    private final LocalDateTime datePlus10 = now.plusMinutes(10);
+    private final LocalDateTime datePlus5 = now.plusMinutes(5);
 
     private final UserDto userDto = makeUserDto("test", "test@test.ru");
     private final UserDto bookerDto = makeUserDto("booker", "booker@test.ru");
@@ -132,6 +142,52 @@ public class BookingServiceImplTest {
         ));
     }
 
+    @Test
+    void addBookingWithOverlappingApprovedBooking() {
+        UserDto newUserDto = userService.addUser(userDto);
+        ItemDto newItemDto = itemService.addItem(newUserDto.getId(), itemDto);
+
+        UserDto newBookerDto = userService.addUser(bookerDto);
+        BookingDto newBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(datePlus5, datePlus10, newItemDto.getId()));
+        bookingService.approveBooking(newUserDto.getId(), newBookingDto.getId(), true);
+
+        BookingDto overlappingBookingDto = makeBookingDto(datePlus5.plusMinutes(1), datePlus10.plusMinutes(1),
+                newItemDto.getId());
+        NotAllowedException e = Assertions.assertThrows(NotAllowedException.class,
+                () -> bookingService.addBooking(newBookerDto.getId(), overlappingBookingDto));
+        assertThat(e.getMessage(), allOf(
+                startsWithIgnoringCase("Вещь с id " + newItemDto.getId() + " уже забронирована"),
+                endsWith(datePlus10.toString())
+        ));
+
+        BookingDto adjacentBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(datePlus10, datePlus10.plusMinutes(5), newItemDto.getId()));
+        assertThat(adjacentBookingDto.getStatus(), equalTo(BookingStatus.WAITING));
+    }
+
+    @Test
+    void approveBookingWithOverlappingApprovedBooking() {
+        UserDto newUserDto = userService.addUser(userDto);
+        ItemDto newItemDto = itemService.addItem(newUserDto.getId(), itemDto);
+
+        UserDto newBookerDto = userService.addUser(bookerDto);
+        BookingDto firstBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(datePlus5, datePlus10, newItemDto.getId()));
+        BookingDto secondBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(datePlus5, datePlus10, newItemDto.getId()));
+
+        bookingService.approveBooking(newUserDto.getId(), firstBookingDto.getId(), true);
+
+        NotAllowedException e = Assertions.assertThrows(NotAllowedException.class,
+                () -> bookingService.approveBooking(newUserDto.getId(), secondBookingDto.getId(), true));
+        assertThat(e.getMessage(), startsWithIgnoringCase("Вещь с id " + newItemDto.getId() + " уже забронирована"));
+
+        BookingDto rejectedBooking = bookingService.approveBooking(newUserDto.getId(), secondBookingDto.getId(),
+                false);
+        assertThat(rejectedBooking.getStatus(), equalTo(BookingStatus.REJECTED));
+    }
+
     @Test
     void approveBookingWithNotFoundItemOwner() {
         NotFoundException e = Assertions.assertThrows(NotFoundException.class,
@@ -223,6 +279,135 @@ public class BookingServiceImplTest {
         ));
     }
 
+    @Test
+    void approveBookingsWithNotFoundItemOwner() {
+        NotFoundException e = Assertions.assertThrows(NotFoundException.class,
+                () -> bookingService.approveBookings(999L, List.of(1L), true));
+        assertThat(e.getMessage(), startsWithIgnoringCase(
+                "Не найден пользователь с id"));
+    }
+
+    @Test
+    void approveBookings() {
+        UserDto newUserDto = userService.addUser(userDto);
+        ItemDto newItemDto = itemService.addItem(newUserDto.getId(), itemDto);
+        UserDto newBookerDto = userService.addUser(bookerDto);
+        ItemDto bookerItemDto = itemService.addItem(newBookerDto.getId(), makeItemDto("other", "other", true, null));
+
+        BookingDto firstBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(datePlus5, datePlus10, newItemDto.getId()));
+        BookingDto overlappingBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(datePlus5.plusMinutes(1), datePlus10.plusMinutes(1), newItemDto.getId()));
+        BookingDto secondBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(datePlus10, datePlus10.plusMinutes(5), newItemDto.getId()));
+        BookingDto otherOwnerBookingDto = bookingService.addBooking(newUserDto.getId(),
+                makeBookingDto(datePlus5, datePlus10, bookerItemDto.getId()));
+
+        List<Long> bookingIds = List.of(firstBookingDto.getId(), overlappingBookingDto.getId(),
+                secondBookingDto.getId(), otherOwnerBookingDto.getId(), firstBookingDto.getId());
+        List<BookingBatchResultDto> results = bookingService.approveBookings(newUserDto.getId(), bookingIds, true);
+
+        assertThat(results, contains(
+                allOf(hasProperty("status", equalTo(200)), hasProperty("booking",
+                        hasProperty("status", equalTo(BookingStatus.APPROVED)))),
+                allOf(hasProperty("status", equalTo(400)), hasProperty("error", containsStringIgnoringCase(
+                        "пересекается с подтверждаемым в этом же запросе бронированием с id " +
+                                firstBookingDto.getId()))),
+                allOf(hasProperty("status", equalTo(200)), hasProperty("booking",
+                        hasProperty("status", equalTo(BookingStatus.APPROVED)))),
+                allOf(hasProperty("status", equalTo(404)), hasProperty("error", startsWithIgnoringCase(
+                        "Не найдено бронирование с id " + otherOwnerBookingDto.getId()))),
+                allOf(hasProperty("status", equalTo(400)), hasProperty("error", containsStringIgnoringCase(
+                        "указано повторно")))
+        ));
+        assertThat(bookingService.getBookingById(newUserDto.getId(), firstBookingDto.getId()).getStatus(),
+                equalTo(BookingStatus.APPROVED));
+        assertThat(bookingService.getBookingById(newUserDto.getId(), overlappingBookingDto.getId()).getStatus(),
+                equalTo(BookingStatus.WAITING));
+
+        List<BookingBatchResultDto> rejectResults = bookingService.approveBookings(newUserDto.getId(),
+                List.of(overlappingBookingDto.getId(), secondBookingDto.getId()), false);
+        assertThat(rejectResults, contains(
+                allOf(hasProperty("status", equalTo(200)), hasProperty("booking",
+                        hasProperty("status", equalTo(BookingStatus.REJECTED)))),
+                allOf(hasProperty("status", equalTo(400)), hasProperty("error", containsStringIgnoringCase(
+                        "не ожидает подтверждения")))
+        ));
+        assertThat(bookingService.getBookingById(newUserDto.getId(), overlappingBookingDto.getId()).getStatus(),
+                equalTo(BookingStatus.REJECTED));
+    }
+
+    @Test
+    void getBookingStateCountsByBookerIdWithWrongBooker() {
+        NotFoundException e = Assertions.assertThrows(NotFoundException.class,
+                () -> bookingService.getBookingStateCountsByBookerId(999L));
+        assertThat(e.getMessage(), startsWithIgnoringCase(
+                "Не найден пользователь с id"));
+    }
+
+    @Test
+    void getBookingStateCounts() {
+        UserDto newUserDto = userService.addUser(userDto);
+        ItemDto newItemDto = itemService.addItem(newUserDto.getId(), itemDto);
+        UserDto newBookerDto = userService.addUser(bookerDto);
+
+        bookingService.addBooking(newBookerDto.getId(), makeBookingDto(dateMinus10, dateMinus5, newItemDto.getId()));
+        bookingService.addBooking(newBookerDto.getId(), makeBookingDto(dateMinus5, datePlus5, newItemDto.getId()));
+        BookingDto futureBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(datePlus5, datePlus10, newItemDto.getId()));
+        bookingService.approveBooking(newUserDto.getId(), futureBookingDto.getId(), false);
+
+        assertThat(bookingService.getBookingStateCountsByItemOwnerId(newUserDto.getId()), allOf(
+                hasProperty("all", equalTo(3L)),
+                hasProperty("current", equalTo(1L)),
+                hasProperty("past", equalTo(1L)),
+                hasProperty("future", equalTo(1L)),
+                hasProperty("waiting", equalTo(2L)),
+                hasProperty("rejected", equalTo(1L))
+        ));
+        assertThat(bookingService.getBookingStateCountsByBookerId(newBookerDto.getId()),
+                hasProperty("all", equalTo(3L)));
+        assertThat(bookingService.getBookingStateCountsByBookerId(newUserDto.getId()),
+                hasProperty("all", equalTo(0L)));
+    }
+
+    @Test
+    void checkItemOwnerExistsWithWrongOwner() {
+        NotFoundException e = Assertions.assertThrows(NotFoundException.class,
+                () -> bookingService.checkItemOwnerExists(999L));
+        assertThat(e.getMessage(), startsWithIgnoringCase(
+                "Не найден пользователь с id"));
+    }
+
+    @Test
+    void exportAllBookingsByItemOwnerId() throws IOException {
+        UserDto newUserDto = userService.addUser(userDto);
+        ItemDto newItemDto = itemService.addItem(newUserDto.getId(), itemDto);
+        UserDto newBookerDto = userService.addUser(bookerDto);
+
+        BookingDto pastBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(dateMinus10, dateMinus5, newItemDto.getId()));
+        BookingDto futureBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(datePlus5, datePlus10, newItemDto.getId()));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        bookingService.exportAllBookingsByItemOwnerId(newUserDto.getId(), outputStream);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertThat(lines.length, equalTo(2));
+        assertThat(lines[0], allOf(
+                containsString("\"id\":" + futureBookingDto.getId()),
+                containsString("\"itemName\":\"test\""),
+                containsString("\"bookerName\":\"booker\""),
+                containsString("\"status\":\"WAITING\"")
+        ));
+        assertThat(lines[1], containsString("\"id\":" + pastBookingDto.getId()));
+
+        ByteArrayOutputStream emptyOutputStream = new ByteArrayOutputStream();
+        bookingService.exportAllBookingsByItemOwnerId(newBookerDto.getId(), emptyOutputStream);
+        assertThat(emptyOutputStream.size(), equalTo(0));
+    }
+
     @Test
     void getBookingByIdWithWrongUser() {
         NotFoundException e = Assertions.assertThrows(NotFoundException.class,
@@ -730,6 +915,162 @@ public class BookingServiceImplTest {
         assertThat(foundBookings.size(), equalTo(0));
     }
 
+    @Test
+    void getAllBookingsByBookerIdWithCursor() {
+        UserDto newUserDto = userService.addUser(userDto);
+        ItemDto newItemDto = itemService.addItem(newUserDto.getId(), itemDto);
+
+        // Даты без долей секунды, чтобы курсор совпадал с сохраненным в БД значением
+        LocalDateTime start = dateMinus10.truncatedTo(ChronoUnit.SECONDS);
+        UserDto newBookerDto = userService.addUser(this.bookerDto);
+        BookingDto newPastBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(start, dateMinus5, newItemDto.getId()));
+        BookingDto newCurrentBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(start, datePlus10, newItemDto.getId()));
+        BookingDto newFutureBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(datePlus5, datePlus10, newItemDto.getId()));
+
+        List<BookingDto> firstPage = new ArrayList<>(bookingService.getAllBookingsByBookerId(newBookerDto.getId(),
+                BookingState.ALL, "", 2));
+
+        assertThat(firstPage.size(), equalTo(2));
+        assertThat(firstPage.get(0).getId(), equalTo(newFutureBookingDto.getId()));
+        assertThat(firstPage.get(1).getId(), equalTo(newCurrentBookingDto.getId()));
+
+        BookingDto last = firstPage.get(1);
+        Collection<BookingDto> secondPage = bookingService.getAllBookingsByBookerId(newBookerDto.getId(),
+                BookingState.ALL, last.getStart() + "," + last.getId(), 2);
+
+        assertThat(secondPage.size(), equalTo(1));
+        assertThat(secondPage, hasItem(hasProperty("id", equalTo(newPastBookingDto.getId()))));
+    }
+
+    @Test
+    void getAllBookingsByBookerIdWithWrongCursor() {
+        UserDto newBookerDto = userService.addUser(this.bookerDto);
+
+        Assertions.assertThrows(ValidationException.class,
+                () -> bookingService.getAllBookingsByBookerId(newBookerDto.getId(), BookingState.ALL, "test", 10));
+    }
+
+    @Test
+    void getAllBookingsByItemOwnerIdWithCursorAndStatePast() {
+        UserDto newUserDto = userService.addUser(userDto);
+        ItemDto newItemDto = itemService.addItem(newUserDto.getId(), itemDto);
+
+        UserDto newBookerDto = userService.addUser(this.bookerDto);
+        BookingDto newPastBookingDto = bookingService.addBooking(newBookerDto.getId(),
+                makeBookingDto(dateMinus10.truncatedTo(ChronoUnit.SECONDS), dateMinus5, newItemDto.getId()));
+        bookingService.addBooking(newBookerDto.getId(), makeBookingDto(datePlus5, datePlus10, newItemDto.getId()));
+
+        Collection<BookingDto> foundBookings = bookingService.getAllBookingsByItemOwnerId(newUserDto.getId(),
+                BookingState.PAST, "", 10);
+
+        assertThat(foundBookings.size(), equalTo(1));
+        assertThat(foundBookings, hasItem(hasProperty("id", equalTo(newPastBookingDto.getId()))));
+
+        foundBookings = bookingService.getAllBookingsByItemOwnerId(newUserDto.getId(), BookingState.PAST,
+                newPastBookingDto.getStart() + "," + newPastBookingDto.getId(), 10);
+
+        assertThat(foundBookings.size(), equalTo(0));
+    }
+
+    @Test
+    void addBookingsWithWrongBooker() {
+        List<BookingDto> bookingDtos = List.of(makeBookingDto(datePlus5, datePlus10, 1L));
+        NotFoundException e = Assertions.assertThrows(NotFoundException.class,
+                () -> bookingService.addBookings(999L, bookingDtos));
+        assertThat(e.getMessage(), startsWithIgnoringCase(
+                "Не найден пользователь с id"));
+    }
+
+    @Test
+    void addBookings() {
+        UserDto newUserDto = userService.addUser(userDto);
+        ItemDto newItemDto = itemService.addItem(newUserDto.getId(), itemDto);
+        ItemDto otherItemDto = itemService.addItem(newUserDto.getId(), makeItemDto("other", "other", true, null));
+
+        UserDto newBookerDto = userService.addUser(bookerDto);
+        List<BookingDto> bookingDtos = List.of(
+                makeBookingDto(datePlus5, datePlus10, newItemDto.getId()),
+                makeBookingDto(datePlus5, datePlus10, otherItemDto.getId()),
+                makeBookingDto(datePlus10, datePlus10.plusMinutes(5), newItemDto.getId()));
+        List<BookingBatchResultDto> results = bookingService.addBookings(newBookerDto.getId(), bookingDtos);
+
+        assertThat(results, hasSize(3));
+        for (int i = 0; i < results.size(); i++) {
+            BookingBatchResultDto result = results.get(i);
+            assertThat(result, allOf(
+                    hasProperty("index", equalTo(i)),
+                    hasProperty("status", equalTo(201)),
+                    hasProperty("error", nullValue())
+            ));
+            assertThat(result.getBooking(), allOf(
+                    hasProperty("id", notNullValue()),
+                    hasProperty("start", equalTo(bookingDtos.get(i).getStart())),
+                    hasProperty("status", equalTo(BookingStatus.WAITING))
+            ));
+            assertThat(bookingService.getBookingById(newBookerDto.getId(), result.getBooking().getId()).getItem(),
+                    hasProperty("id", equalTo(bookingDtos.get(i).getItemId())));
+        }
+    }
+
+    @Test
+    void addBookingsWithFailedRows() {
+        UserDto newUserDto = userService.addUser(userDto);
+        ItemDto newItemDto = itemService.addItem(newUserDto.getId(), itemDto);
+        ItemDto notAvailableItemDto = itemService.addItem(newUserDto.getId(),
+                makeItemDto("test", "test", false, null));
+
+        UserDto newBookerDto = userService.addUser(bookerDto);
+        List<BookingDto> bookingDtos = List.of(
+                makeBookingDto(datePlus5, datePlus10, newItemDto.getId()),
+                makeBookingDto(datePlus10, datePlus5, newItemDto.getId()),
+                makeBookingDto(dateMinus10, datePlus5, newItemDto.getId()),
+                makeBookingDto(datePlus5, datePlus10, 999L),
+                makeBookingDto(datePlus5, datePlus10, notAvailableItemDto.getId()),
+                makeBookingDto(null, datePlus10, newItemDto.getId()));
+        List<BookingBatchResultDto> results = bookingService.addBookings(newBookerDto.getId(), bookingDtos);
+
+        assertThat(results, contains(
+                allOf(hasProperty("status", equalTo(201)), hasProperty("booking", notNullValue())),
+                allOf(hasProperty("status", equalTo(400)), hasProperty("error", startsWithIgnoringCase(
+                        "Дата окончания бронирования не может быть раньше даты начала бронирования"))),
+                allOf(hasProperty("status", equalTo(400)), hasProperty("error", startsWithIgnoringCase(
+                        "Дата начала бронирования не может быть в прошлом"))),
+                allOf(hasProperty("status", equalTo(404)), hasProperty("error", startsWithIgnoringCase(
+                        "Не найдена вещь с id"))),
+                allOf(hasProperty("status", equalTo(400)), hasProperty("error", startsWithIgnoringCase(
+                        "Вещь с id"))),
+                allOf(hasProperty("status", equalTo(400)), hasProperty("booking", nullValue()))
+        ));
+
+        List<BookingBatchResultDto> ownerResults = bookingService.addBookings(newUserDto.getId(),
+                List.of(makeBookingDto(datePlus5, datePlus10, newItemDto.getId())));
+        assertThat(ownerResults.get(0), allOf(
+                hasProperty("status", equalTo(404)),
+                hasProperty("error", startsWithIgnoringCase("Нельзя забронировать собственную вещь"))
+        ));
+    }
+
+    @Test
+    void addBookingsWithNullRow() {
+        UserDto newUserDto = userService.addUser(userDto);
+        ItemDto newItemDto = itemService.addItem(newUserDto.getId(), itemDto);
+        UserDto newBookerDto = userService.addUser(bookerDto);
+
+        List<BookingDto> bookingDtos = Arrays.asList(
+                makeBookingDto(datePlus5, datePlus10, newItemDto.getId()),
+                null);
+        List<BookingBatchResultDto> results = bookingService.addBookings(newBookerDto.getId(), bookingDtos);
+
+        assertThat(results, contains(
+                allOf(hasProperty("status", equalTo(201)), hasProperty("booking", notNullValue())),
+                allOf(hasProperty("index", equalTo(1)), hasProperty("status", equalTo(400)),
+                        hasProperty("error", startsWithIgnoringCase("Строка пакета не содержит бронирования")))
+        ));
+    }
+
     private BookingDto makeBookingDto(LocalDateTime start, LocalDateTime end, Long itemId) {
         return BookingDto.builder()
                 .start(start)
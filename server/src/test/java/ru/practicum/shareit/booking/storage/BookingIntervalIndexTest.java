@@ -0,0 +1,292 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.AvailabilityInterval;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingInterval;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.*;
+
+public class BookingIntervalIndexTest {
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final BookingIntervalIndex index = new BookingIntervalIndex(bookingRepository);
+
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Test
+    void hasOverlap() {
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(eq(1L), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(List.of(
+                        new BookingInterval(1L, now, now.plusHours(1)),
+                        new BookingInterval(2L, now.plusHours(3), now.plusHours(4))));
+
+        assertThat(index.hasOverlap(1L, now.minusHours(1), now), equalTo(false));
+        assertThat(index.hasOverlap(1L, now.minusHours(1), now.plusMinutes(1)), equalTo(true));
+        assertThat(index.hasOverlap(1L, now.plusMinutes(10), now.plusMinutes(20)), equalTo(true));
+        assertThat(index.hasOverlap(1L, now.plusHours(1), now.plusHours(3)), equalTo(false));
+        assertThat(index.hasOverlap(1L, now.plusHours(2), now.plusHours(5)), equalTo(true));
+        assertThat(index.hasOverlap(1L, now.plusHours(4), now.plusHours(5)), equalTo(false));
+
+        verify(bookingRepository, times(1)).findIntervalsByItemIdAndStatusAndEndAfter(eq(1L),
+                eq(BookingStatus.APPROVED), any());
+    }
+
+    @Test
+    void hasOverlapWithLongInterval() {
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(eq(1L), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(List.of(
+                        new BookingInterval(1L, now, now.plusDays(10)),
+                        new BookingInterval(2L, now.plusDays(11), now.plusDays(12))));
+
+        assertThat(index.hasOverlap(1L, now.plusDays(9), now.plusDays(9).plusHours(1)), equalTo(true));
+        assertThat(index.hasOverlap(1L, now.plusDays(10), now.plusDays(11)), equalTo(false));
+    }
+
+    @Test
+    void findNextFreeSlot() {
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(eq(1L), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(List.of(
+                        new BookingInterval(1L, now, now.plusHours(1)),
+                        new BookingInterval(2L, now.plusHours(2), now.plusHours(3)),
+                        new BookingInterval(3L, now.plusHours(3), now.plusHours(5))));
+
+        assertThat(index.findNextFreeSlot(1L, now.minusHours(2), Duration.ofHours(1)),
+                equalTo(now.minusHours(2)));
+        assertThat(index.findNextFreeSlot(1L, now, Duration.ofHours(1)), equalTo(now.plusHours(1)));
+        assertThat(index.findNextFreeSlot(1L, now, Duration.ofHours(2)), equalTo(now.plusHours(5)));
+    }
+
+    @Test
+    void getAvailability() {
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(eq(1L), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(List.of(
+                        new BookingInterval(1L, now.minusHours(2), now.plusHours(1)),
+                        new BookingInterval(2L, now.plusHours(5), now.plusHours(6))));
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(eq(1L), eq(BookingStatus.WAITING), any()))
+                .thenReturn(List.of(
+                        new BookingInterval(3L, now.plusHours(3), now.plusHours(5)),
+                        new BookingInterval(4L, now.plusHours(4), now.plusHours(7)),
+                        new BookingInterval(5L, now.plusHours(9), now.plusHours(12))));
+
+        List<AvailabilityInterval> availability = index.getAvailability(1L, now, now.plusHours(10));
+
+        assertThat(describe(availability), equalTo(List.of(
+                "busy 0-1", "free 1-3", "busy 3-7", "free 7-9", "busy 9-10")));
+        assertThat(describe(index.getAvailability(1L, now.plusHours(1), now.plusHours(3))),
+                equalTo(List.of("free 1-3")));
+    }
+
+    @Test
+    void getAvailabilityAfterApproveAndReject() {
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(eq(1L), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(List.of());
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(eq(1L), eq(BookingStatus.WAITING), any()))
+                .thenReturn(List.of());
+        assertThat(describe(index.getAvailability(1L, now, now.plusHours(4))), equalTo(List.of("free 0-4")));
+
+        Booking first = makeBooking(10L, now, now.plusHours(1));
+        Booking second = makeBooking(11L, now.plusHours(2), now.plusHours(3));
+        index.addWaiting(first);
+        index.addWaiting(second);
+        assertThat(describe(index.getAvailability(1L, now, now.plusHours(4))),
+                equalTo(List.of("busy 0-1", "free 1-2", "busy 2-3", "free 3-4")));
+
+        index.addApproved(first);
+        index.removeWaiting(second);
+        assertThat(describe(index.getAvailability(1L, now, now.plusHours(4))),
+                equalTo(List.of("busy 0-1", "free 1-4")));
+    }
+
+    @Test
+    void addApprovedAndEvict() {
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(eq(1L), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(List.of());
+
+        assertThat(index.hasOverlap(1L, now, now.plusHours(1)), equalTo(false));
+
+        Item item = new Item();
+        item.setId(1L);
+        Booking booking = Booking.builder()
+                .id(10L)
+                .item(item)
+                .start(now)
+                .end(now.plusHours(1))
+                .status(BookingStatus.APPROVED)
+                .build();
+        index.addApproved(booking);
+
+        assertThat(index.hasOverlap(1L, now, now.plusHours(1)), equalTo(true));
+
+        index.evictItem(1L);
+        assertThat(index.hasOverlap(1L, now, now.plusHours(1)), equalTo(false));
+        verify(bookingRepository, times(2)).findIntervalsByItemIdAndStatusAndEndAfter(eq(1L),
+                eq(BookingStatus.APPROVED), any());
+    }
+
+    @Test
+    void addApprovedAfterCommit() throws Exception {
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(eq(1L), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(List.of());
+        assertThat(index.hasOverlap(1L, now, now.plusHours(1)), equalTo(false));
+        Booking committed = makeBooking(10L, now, now.plusHours(1));
+        Booking rolledBack = makeBooking(11L, now.plusHours(2), now.plusHours(3));
+
+        approveInTransaction(committed, TransactionSynchronization.STATUS_COMMITTED);
+        approveInTransaction(rolledBack, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(index.hasOverlap(1L, now, now.plusHours(1)), equalTo(true));
+        assertThat(index.hasOverlap(1L, now.plusHours(2), now.plusHours(3)), equalTo(false));
+    }
+
+    // В индексе остаются интервалы, закончившиеся не раньше срока хранения, а период, начинающийся раньше,
+    // проверяется по БД
+    @Test
+    void pastIntervalsAreReadFromDb() {
+        LocalDateTime current = LocalDateTime.now();
+        LocalDateTime pastStart = current.minusDays(40);
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(eq(1L), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(List.of());
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(1L, BookingStatus.APPROVED, pastStart))
+                .thenReturn(List.of(new BookingInterval(10L, pastStart, pastStart.plusHours(1))));
+
+        assertThat(index.hasOverlap(1L, current.plusHours(1), current.plusHours(2)), equalTo(false));
+        index.addApproved(makeBooking(10L, pastStart, pastStart.plusHours(1)));
+        index.addApproved(makeBooking(11L, current.plusHours(1), current.plusHours(2)));
+
+        assertThat(index.hasOverlap(1L, current.plusHours(1), current.plusHours(2)), equalTo(true));
+        assertThat(index.hasOverlap(1L, pastStart, pastStart.plusHours(1)), equalTo(true));
+        assertThat(index.hasOverlap(1L, pastStart.plusHours(1), pastStart.plusHours(2)), equalTo(false));
+
+        ArgumentCaptor<LocalDateTime> loadedAfter = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(bookingRepository, times(3)).findIntervalsByItemIdAndStatusAndEndAfter(eq(1L),
+                eq(BookingStatus.APPROVED), loadedAfter.capture());
+        assertThat(loadedAfter.getAllValues().get(0).isBefore(current.minusDays(29)), equalTo(true));
+        assertThat(loadedAfter.getAllValues().get(0).isAfter(current.minusDays(31)), equalTo(true));
+        assertThat(loadedAfter.getAllValues().subList(1, 3),
+                equalTo(List.of(pastStart, pastStart.plusHours(1))));
+    }
+
+    // Загрузка прочитала интервалы из БД до подтверждения, а подтверждение пришло, пока она еще не попала в индекс
+    @Test
+    void addApprovedDuringLoad() throws Exception {
+        Booking booking = makeBooking(10L, now, now.plusHours(1));
+        booking.setStatus(BookingStatus.APPROVED);
+
+        changeDuringLoad(BookingStatus.APPROVED, List.of(), () -> index.addApproved(booking),
+                () -> index.hasOverlap(1L, now.minusHours(2), now.minusHours(1)));
+
+        assertThat(index.hasOverlap(1L, now, now.plusHours(1)), equalTo(true));
+        verify(bookingRepository, times(1)).findIntervalsByItemIdAndStatusAndEndAfter(eq(1L),
+                eq(BookingStatus.APPROVED), any());
+    }
+
+    // Загрузка прочитала ожидающие бронирования из БД до создания второго и отклонения первого
+    @Test
+    void addAndRemoveWaitingDuringLoad() throws Exception {
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(eq(1L), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(List.of());
+        Booking rejected = makeBooking(10L, now, now.plusHours(1));
+        Booking created = makeBooking(11L, now.plusHours(2), now.plusHours(3));
+
+        changeDuringLoad(BookingStatus.WAITING, List.of(new BookingInterval(10L, now, now.plusHours(1))), () -> {
+            index.addWaiting(created);
+            index.removeWaiting(rejected);
+        }, () -> index.getAvailability(1L, now, now.plusHours(4)));
+
+        assertThat(describe(index.getAvailability(1L, now, now.plusHours(4))),
+                equalTo(List.of("free 0-2", "busy 2-3", "free 3-4")));
+        verify(bookingRepository, times(1)).findIntervalsByItemIdAndStatusAndEndAfter(eq(1L),
+                eq(BookingStatus.WAITING), any());
+    }
+
+    // Изменение выполняется в отдельном потоке, как только загрузка прочитала интервалы из БД. Загрузка ждет
+    // изменения не дольше секунды: исправленный индекс сам задерживает изменение до окончания загрузки
+    private void changeDuringLoad(BookingStatus status, List<BookingInterval> stored, Runnable change, Runnable load)
+            throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch changed = new CountDownLatch(1);
+        when(bookingRepository.findIntervalsByItemIdAndStatusAndEndAfter(eq(1L), eq(status), any()))
+                .thenAnswer(invocation -> {
+                    loadStarted.countDown();
+                    changed.await(1, TimeUnit.SECONDS);
+                    return stored;
+                });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> changing = executor.submit(() -> {
+                loadStarted.await();
+                change.run();
+                changed.countDown();
+                return null;
+            });
+            load.run();
+            changing.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // До завершения транзакции подтверждение видно только в ней самой, другой поток его не видит. Синхронизации
+    // вызываются так же, как их вызывает менеджер транзакций при ее завершении
+    private void approveInTransaction(Booking booking, int status) throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            index.addApproved(booking);
+            assertThat(index.hasOverlap(1L, booking.getStart(), booking.getEnd()), equalTo(true));
+            assertThat(index.findNextFreeSlot(1L, booking.getStart(), Duration.ofHours(1)),
+                    equalTo(booking.getEnd()));
+            assertThat(executor.submit(() -> index.hasOverlap(1L, booking.getStart(), booking.getEnd()))
+                    .get(5, TimeUnit.SECONDS), equalTo(false));
+            List<TransactionSynchronization> synchronizations =
+                    TransactionSynchronizationManager.getSynchronizations();
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+            }
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        } finally {
+            executor.shutdownNow();
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(TransactionSynchronizationManager.getResourceMap().isEmpty(), equalTo(true));
+    }
+
+    private Booking makeBooking(Long id, LocalDateTime start, LocalDateTime end) {
+        Item item = new Item();
+        item.setId(1L);
+        return Booking.builder()
+                .id(id)
+                .item(item)
+                .start(start)
+                .end(end)
+                .status(BookingStatus.WAITING)
+                .build();
+    }
+
+    // Отрезки в часах от начала отсчета: так ожидаемый календарь читается в одну строку
+    private List<String> describe(List<AvailabilityInterval> availability) {
+        return availability.stream()
+                .map(interval -> (interval.isAvailable() ? "free " : "busy ")
+                        + Duration.between(now, interval.getStart()).toHours() + "-"
+                        + Duration.between(now, interval.getEnd()).toHours())
+                .collect(Collectors.toList());
+    }
+}
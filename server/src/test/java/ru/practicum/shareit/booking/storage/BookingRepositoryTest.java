@@ -11,6 +11,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingView;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.model.User;
@@ -18,6 +19,7 @@ import ru.practicum.shareit.user.storage.UserRepository;
 
 import javax.persistence.TypedQuery;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Collection;
 import java.util.Optional;
 
@@ -39,6 +41,8 @@ public class BookingRepositoryTest {
     private Booking newCurrentBooking;
     private Booking newFutureBooking;
 
+    // Списки бронирований читаются из БД, где время хранится с точностью до микросекунд
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     private final PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("id").ascending());
 
     @BeforeEach
@@ -72,8 +76,8 @@ public class BookingRepositoryTest {
         Booking pastBooking = new Booking();
         pastBooking.setItem(newItem);
         pastBooking.setBooker(newBooker);
-        pastBooking.setStart(LocalDateTime.now().minusMinutes(10));
-        pastBooking.setEnd(LocalDateTime.now().minusMinutes(5));
+        pastBooking.setStart(now.minusMinutes(10));
+        pastBooking.setEnd(now.minusMinutes(5));
         pastBooking.setStatus(BookingStatus.WAITING);
 
         Assertions.assertNull(pastBooking.getId());
@@ -83,8 +87,8 @@ public class BookingRepositoryTest {
         Booking currentBooking = new Booking();
         currentBooking.setItem(newItem);
         currentBooking.setBooker(newBooker);
-        currentBooking.setStart(LocalDateTime.now().minusMinutes(10));
-        currentBooking.setEnd(LocalDateTime.now().plusMinutes(10));
+        currentBooking.setStart(now.minusMinutes(10));
+        currentBooking.setEnd(now.plusMinutes(10));
         currentBooking.setStatus(BookingStatus.WAITING);
 
         Assertions.assertNull(currentBooking.getId());
@@ -94,8 +98,8 @@ public class BookingRepositoryTest {
         Booking futureBooking = new Booking();
         futureBooking.setItem(newItem);
         futureBooking.setBooker(newBooker);
-        futureBooking.setStart(LocalDateTime.now().plusMinutes(5));
-        futureBooking.setEnd(LocalDateTime.now().plusMinutes(10));
+        futureBooking.setStart(now.plusMinutes(5));
+        futureBooking.setEnd(now.plusMinutes(10));
         futureBooking.setStatus(BookingStatus.WAITING);
 
         Assertions.assertNull(futureBooking.getId());
@@ -161,7 +165,7 @@ public class BookingRepositoryTest {
 
     @Test
     void findCurrentBookingsByBookerId() {
-        Collection<Booking> foundBookings = bookingRepository.findCurrentBookingsByBookerId(
+        Collection<BookingView> foundBookings = bookingRepository.findCurrentBookingsByBookerId(
                 newBooker.getId(), LocalDateTime.now(), LocalDateTime.now(), pageRequest);
 
         assertThat(foundBookings.size(), equalTo(1));
@@ -169,14 +173,15 @@ public class BookingRepositoryTest {
                 hasProperty("id", equalTo(newCurrentBooking.getId())),
                 hasProperty("start", equalTo(newCurrentBooking.getStart())),
                 hasProperty("end", equalTo(newCurrentBooking.getEnd())),
-                hasProperty("item", notNullValue()),
-                hasProperty("booker", notNullValue())
+                hasProperty("itemId", equalTo(newItem.getId())),
+                hasProperty("itemRequestId", nullValue()),
+                hasProperty("bookerId", equalTo(newBooker.getId()))
         )));
     }
 
     @Test
     void findPastBookingsByBookerId() {
-        Collection<Booking> foundBookings = bookingRepository.findPastBookingsByBookerId(
+        Collection<BookingView> foundBookings = bookingRepository.findPastBookingsByBookerId(
                 newBooker.getId(), LocalDateTime.now(), pageRequest);
 
         assertThat(foundBookings.size(), equalTo(1));
@@ -184,14 +189,15 @@ public class BookingRepositoryTest {
                 hasProperty("id", equalTo(newPastBooking.getId())),
                 hasProperty("start", equalTo(newPastBooking.getStart())),
                 hasProperty("end", equalTo(newPastBooking.getEnd())),
-                hasProperty("item", notNullValue()),
-                hasProperty("booker", notNullValue())
+                hasProperty("itemId", equalTo(newItem.getId())),
+                hasProperty("itemRequestId", nullValue()),
+                hasProperty("bookerId", equalTo(newBooker.getId()))
         )));
     }
 
     @Test
     void findFutureBookingsByBookerId() {
-        Collection<Booking> foundBookings = bookingRepository.findFutureBookingsByBookerId(
+        Collection<BookingView> foundBookings = bookingRepository.findFutureBookingsByBookerId(
                 newBooker.getId(), LocalDateTime.now(), pageRequest);
 
         assertThat(foundBookings.size(), equalTo(1));
@@ -199,14 +205,15 @@ public class BookingRepositoryTest {
                 hasProperty("id", equalTo(newFutureBooking.getId())),
                 hasProperty("start", equalTo(newFutureBooking.getStart())),
                 hasProperty("end", equalTo(newFutureBooking.getEnd())),
-                hasProperty("item", notNullValue()),
-                hasProperty("booker", notNullValue())
+                hasProperty("itemId", equalTo(newItem.getId())),
+                hasProperty("itemRequestId", nullValue()),
+                hasProperty("bookerId", equalTo(newBooker.getId()))
         )));
     }
 
     @Test
     void findCurrentBookingsByItemOwnerId() {
-        Collection<Booking> foundBookings = bookingRepository.findCurrentBookingsByItemOwnerId(
+        Collection<BookingView> foundBookings = bookingRepository.findCurrentBookingsByItemOwnerId(
                 newOwner.getId(), LocalDateTime.now(), LocalDateTime.now(), pageRequest);
 
         assertThat(foundBookings.size(), equalTo(1));
@@ -214,14 +221,15 @@ public class BookingRepositoryTest {
                 hasProperty("id", equalTo(newCurrentBooking.getId())),
                 hasProperty("start", equalTo(newCurrentBooking.getStart())),
                 hasProperty("end", equalTo(newCurrentBooking.getEnd())),
-                hasProperty("item", notNullValue()),
-                hasProperty("booker", notNullValue())
+                hasProperty("itemId", equalTo(newItem.getId())),
+                hasProperty("itemRequestId", nullValue()),
+                hasProperty("bookerId", equalTo(newBooker.getId()))
         )));
     }
 
     @Test
     void findPastBookingsByItemOwnerId() {
-        Collection<Booking> foundBookings = bookingRepository.findPastBookingsByItemOwnerId(
+        Collection<BookingView> foundBookings = bookingRepository.findPastBookingsByItemOwnerId(
                 newOwner.getId(), LocalDateTime.now(), pageRequest);
 
         assertThat(foundBookings.size(), equalTo(1));
@@ -229,14 +237,15 @@ public class BookingRepositoryTest {
                 hasProperty("id", equalTo(newPastBooking.getId())),
                 hasProperty("start", equalTo(newPastBooking.getStart())),
                 hasProperty("end", equalTo(newPastBooking.getEnd())),
-                hasProperty("item", notNullValue()),
-                hasProperty("booker", notNullValue())
+                hasProperty("itemId", equalTo(newItem.getId())),
+                hasProperty("itemRequestId", nullValue()),
+                hasProperty("bookerId", equalTo(newBooker.getId()))
         )));
     }
 
     @Test
     void findFutureBookingsByItemOwnerId() {
-        Collection<Booking> foundBookings = bookingRepository.findFutureBookingsByItemOwnerId(
+        Collection<BookingView> foundBookings = bookingRepository.findFutureBookingsByItemOwnerId(
                 newOwner.getId(), LocalDateTime.now(), pageRequest);
 
         assertThat(foundBookings.size(), equalTo(1));
@@ -244,8 +253,9 @@ public class BookingRepositoryTest {
                 hasProperty("id", equalTo(newFutureBooking.getId())),
                 hasProperty("start", equalTo(newFutureBooking.getStart())),
                 hasProperty("end", equalTo(newFutureBooking.getEnd())),
-                hasProperty("item", notNullValue()),
-                hasProperty("booker", notNullValue())
+                hasProperty("itemId", equalTo(newItem.getId())),
+                hasProperty("itemRequestId", nullValue()),
+                hasProperty("bookerId", equalTo(newBooker.getId()))
         )));
     }
 }
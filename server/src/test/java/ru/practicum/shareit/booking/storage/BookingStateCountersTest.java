@@ -0,0 +1,254 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingSchedule;
+import ru.practicum.shareit.booking.model.BookingStateCounts;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class BookingStateCountersTest {
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final BookingStateCounters counters = new BookingStateCounters(bookingRepository);
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void getByBookerIdLoadsOnce() {
+        when(bookingRepository.countStatesByBookerId(eq(1L), any(), eq(BookingStatus.WAITING),
+                eq(BookingStatus.REJECTED)))
+                .thenReturn(new BookingStateCounts(5L, 1L, 2L, 2L, 3L, null));
+
+        assertThat(counters.getByBookerId(1L), allOf(
+                hasProperty("all", equalTo(5L)),
+                hasProperty("current", equalTo(1L)),
+                hasProperty("past", equalTo(2L)),
+                hasProperty("future", equalTo(2L)),
+                hasProperty("waiting", equalTo(3L)),
+                hasProperty("rejected", equalTo(0L))
+        ));
+        counters.getByBookerId(1L);
+
+        verify(bookingRepository, times(1)).countStatesByBookerId(eq(1L), any(), any(), any());
+    }
+
+    @Test
+    void addCreatedAndChangeStatus() {
+        when(bookingRepository.countStatesByBookerId(eq(1L), any(), any(), any()))
+                .thenReturn(new BookingStateCounts(0L, 0L, 0L, 0L, 0L, 0L));
+        when(bookingRepository.countStatesByItemOwnerId(eq(2L), any(), any(), any()))
+                .thenReturn(new BookingStateCounts(0L, 0L, 0L, 0L, 0L, 0L));
+        counters.getByBookerId(1L);
+        counters.getByItemOwnerId(2L);
+
+        Booking booking = makeBooking(10L, now.plusHours(1), now.plusHours(2));
+        counters.addCreated(booking);
+
+        assertThat(counters.getByBookerId(1L), allOf(
+                hasProperty("all", equalTo(1L)),
+                hasProperty("future", equalTo(1L)),
+                hasProperty("waiting", equalTo(1L))
+        ));
+        assertThat(counters.getByItemOwnerId(2L), allOf(
+                hasProperty("all", equalTo(1L)),
+                hasProperty("future", equalTo(1L)),
+                hasProperty("waiting", equalTo(1L))
+        ));
+
+        booking.setStatus(BookingStatus.REJECTED);
+        counters.changeStatus(booking, BookingStatus.WAITING);
+
+        assertThat(counters.getByItemOwnerId(2L), allOf(
+                hasProperty("all", equalTo(1L)),
+                hasProperty("waiting", equalTo(0L)),
+                hasProperty("rejected", equalTo(1L))
+        ));
+    }
+
+    @Test
+    void shiftMovesStartedAndFinishedBookings() {
+        when(bookingRepository.countStatesByBookerId(eq(1L), any(), any(), any()))
+                .thenReturn(new BookingStateCounts(3L, 1L, 0L, 2L, 0L, 0L));
+        counters.getByBookerId(1L);
+
+        BookingSchedule started = new BookingSchedule(10L, 1L, 2L, now.plusMinutes(30), now.plusHours(3));
+        BookingSchedule startedAndFinished = new BookingSchedule(11L, 1L, 2L, now.plusMinutes(10),
+                now.plusMinutes(20));
+        BookingSchedule finished = new BookingSchedule(12L, 1L, 2L, now.minusHours(1), now.plusMinutes(40));
+        LocalDateTime shiftDate = now.plusHours(1);
+        when(bookingRepository.findSchedulesByStartBetween(any(), eq(shiftDate)))
+                .thenReturn(List.of(started, startedAndFinished));
+        when(bookingRepository.findSchedulesByEndBetween(any(), eq(shiftDate)))
+                .thenReturn(List.of(startedAndFinished, finished));
+
+        counters.shiftTo(shiftDate);
+
+        assertThat(counters.getByBookerId(1L), allOf(
+                hasProperty("all", equalTo(3L)),
+                hasProperty("current", equalTo(1L)),
+                hasProperty("past", equalTo(2L)),
+                hasProperty("future", equalTo(0L))
+        ));
+
+        // Новые бронирования считаются на момент последнего переноса
+        counters.addCreated(makeBooking(13L, now.plusMinutes(50), now.plusHours(2)));
+        assertThat(counters.getByBookerId(1L), hasProperty("current", equalTo(2L)));
+    }
+
+    @Test
+    void evictAll() {
+        when(bookingRepository.countStatesByItemOwnerId(eq(2L), any(), any(), any()))
+                .thenReturn(new BookingStateCounts(0L, 0L, 0L, 0L, 0L, 0L));
+
+        counters.getByItemOwnerId(2L);
+        counters.evictAll();
+        counters.getByItemOwnerId(2L);
+
+        verify(bookingRepository, times(2)).countStatesByItemOwnerId(eq(2L), any(), any(), any());
+    }
+
+    // Загрузка при незавершенной транзакции могла уже увидеть ее бронирование, поэтому после фиксации счетчики
+    // перечитываются, а не увеличиваются поверх загруженного
+    @Test
+    void loadDuringUncommittedChange() {
+        when(bookingRepository.countStatesByBookerId(eq(1L), any(), any(), any()))
+                .thenReturn(new BookingStateCounts(1L, 0L, 0L, 1L, 1L, 0L));
+
+        inTransaction(() -> {
+            counters.addCreated(makeBooking(10L, now.plusHours(1), now.plusHours(2)));
+            counters.getByBookerId(1L);
+        }, TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(counters.getByBookerId(1L), allOf(
+                hasProperty("all", equalTo(1L)),
+                hasProperty("waiting", equalTo(1L))
+        ));
+        verify(bookingRepository, times(2)).countStatesByBookerId(eq(1L), any(), any(), any());
+    }
+
+    @Test
+    void rolledBackChange() {
+        when(bookingRepository.countStatesByBookerId(eq(1L), any(), any(), any()))
+                .thenReturn(new BookingStateCounts(0L, 0L, 0L, 0L, 0L, 0L));
+        counters.getByBookerId(1L);
+
+        inTransaction(() -> counters.addCreated(makeBooking(10L, now.plusHours(1), now.plusHours(2))),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(counters.getByBookerId(1L), hasProperty("all", equalTo(0L)));
+        verify(bookingRepository, times(1)).countStatesByBookerId(eq(1L), any(), any(), any());
+    }
+
+    // Перенос нашел бронирование, зафиксированное, но еще не примененное к счетчикам. Без пометки неточности
+    // перенос сдвинул бы его из будущих в текущие, а примененное следом создание посчитало бы текущим еще раз
+    @Test
+    void shiftDuringUncompletedChange() {
+        when(bookingRepository.countStatesByBookerId(eq(1L), any(), any(), any()))
+                .thenReturn(new BookingStateCounts(0L, 0L, 0L, 0L, 0L, 0L))
+                .thenReturn(new BookingStateCounts(1L, 1L, 0L, 0L, 1L, 0L));
+        counters.getByBookerId(1L);
+        Booking booking = makeBooking(10L, now.plusMinutes(30), now.plusHours(2));
+        LocalDateTime shiftDate = now.plusHours(1);
+        when(bookingRepository.findSchedulesByStartBetween(any(), eq(shiftDate)))
+                .thenReturn(List.of(new BookingSchedule(10L, 1L, 2L, booking.getStart(), booking.getEnd())));
+        when(bookingRepository.findSchedulesByEndBetween(any(), eq(shiftDate)))
+                .thenReturn(List.of());
+
+        inTransaction(() -> {
+            counters.addCreated(booking);
+            counters.shiftTo(shiftDate);
+        }, TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(counters.getByBookerId(1L), allOf(
+                hasProperty("all", equalTo(1L)),
+                hasProperty("current", equalTo(1L)),
+                hasProperty("future", equalTo(0L))
+        ));
+        verify(bookingRepository, times(2)).countStatesByBookerId(eq(1L), any(), any(), any());
+    }
+
+    // Загрузка прочитала счетчики из БД до создания бронирования, а его транзакция завершилась, пока счетчики
+    // еще не попали в таблицу. Загрузка ждет создания не дольше секунды: исправленные счетчики сами задерживают
+    // его до окончания загрузки
+    @Test
+    void changeCommittedDuringLoad() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        when(bookingRepository.countStatesByBookerId(eq(1L), any(), any(), any())).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            committed.await(1, TimeUnit.SECONDS);
+            return new BookingStateCounts(0L, 0L, 0L, 0L, 0L, 0L);
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> creating = executor.submit(() -> {
+                loadStarted.await();
+                inTransaction(() -> counters.addCreated(makeBooking(10L, now.plusHours(1), now.plusHours(2))),
+                        TransactionSynchronization.STATUS_COMMITTED);
+                committed.countDown();
+                return null;
+            });
+            counters.getByBookerId(1L);
+            creating.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(counters.getByBookerId(1L), hasProperty("all", equalTo(1L)));
+        verify(bookingRepository, times(1)).countStatesByBookerId(eq(1L), any(), any(), any());
+    }
+
+    // Синхронизации транзакции вызываются так же, как их вызывает менеджер транзакций при ее завершении
+    private void inTransaction(Runnable action, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+            List<TransactionSynchronization> synchronizations =
+                    TransactionSynchronizationManager.getSynchronizations();
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+            }
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private Booking makeBooking(Long id, LocalDateTime start, LocalDateTime end) {
+        User booker = new User();
+        booker.setId(1L);
+        User owner = new User();
+        owner.setId(2L);
+        Item item = new Item();
+        item.setId(3L);
+        item.setOwner(owner);
+        return Booking.builder()
+                .id(id)
+                .start(start)
+                .end(end)
+                .item(item)
+                .booker(booker)
+                .status(BookingStatus.WAITING)
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.comment.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.model.ItemComment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DataJpaTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class CommentRepositoryTest {
+    private final TestEntityManager em;
+    private final CommentRepository commentRepository;
+
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    private User author;
+    private Item item1;
+    private Item item2;
+
+    @BeforeEach
+    void beforeEach() {
+        author = em.persist(User.builder().name("author").email("author@test.ru").build());
+        item1 = em.persist(Item.builder().name("item1").description("item1").available(true).owner(author).build());
+        item2 = em.persist(Item.builder().name("item2").description("item2").available(true).owner(author).build());
+    }
+
+    @Test
+    void findItemCommentsByItemIdIn() {
+        Comment oldComment = persistComment(item1, now.minusDays(1));
+        Comment newComment = persistComment(item1, now);
+        Comment otherComment = persistComment(item2, now.minusHours(1));
+
+        List<ItemComment> comments = commentRepository.findItemCommentsByItemIdIn(List.of(item1.getId()));
+
+        assertThat(comments.size(), equalTo(2));
+        assertThat(comments.get(0).getId(), equalTo(newComment.getId()));
+        assertThat(comments.get(0).getItemId(), equalTo(item1.getId()));
+        assertThat(comments.get(0).getAuthorName(), equalTo(author.getName()));
+        assertThat(comments.get(0).getCreated(), equalTo(now));
+        assertThat(comments.get(1).getId(), equalTo(oldComment.getId()));
+
+        comments = commentRepository.findItemCommentsByItemIdIn(List.of(item1.getId(), item2.getId()));
+
+        assertThat(comments.size(), equalTo(3));
+        assertThat(comments.get(1).getId(), equalTo(otherComment.getId()));
+    }
+
+    @Test
+    void findLatestItemCommentsByItemIdIn() {
+        persistComment(item1, now.minusDays(2));
+        Comment middleComment = persistComment(item1, now.minusDays(1));
+        Comment newComment = persistComment(item1, now);
+        Comment otherComment = persistComment(item2, now.minusHours(1));
+
+        List<ItemComment> comments = commentRepository.findLatestItemCommentsByItemIdIn(
+                List.of(item1.getId(), item2.getId()), 2);
+
+        assertThat(comments.size(), equalTo(3));
+        assertThat(comments.get(0).getId(), equalTo(newComment.getId()));
+        assertThat(comments.get(0).getItemId(), equalTo(item1.getId()));
+        assertThat(comments.get(0).getAuthorName(), equalTo(author.getName()));
+        assertThat(comments.get(0).getCreated(), equalTo(now));
+        assertThat(comments.get(1).getId(), equalTo(otherComment.getId()));
+        assertThat(comments.get(2).getId(), equalTo(middleComment.getId()));
+    }
+
+    private Comment persistComment(Item item, LocalDateTime created) {
+        return em.persist(Comment.builder()
+                .text("comment")
+                .item(item)
+                .author(author)
+                .created(created)
+                .build());
+    }
+}
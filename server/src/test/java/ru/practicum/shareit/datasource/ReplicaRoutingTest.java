@@ -0,0 +1,95 @@
+package ru.practicum.shareit.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Основная БД и реплика - две встроенные H2. Реплика получает схему, но не данные, поэтому по ответу видно,
+// из какой БД читал запрос
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "shareit.datasource.replica-urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "shareit.datasource.read-your-writes-window=1h",
+        "shareit.search.engine=like"})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper mapper;
+    private final MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure()
+                .dataSource(REPLICA_URL, "test", "test")
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+    }
+
+    @Test
+    void readOnlyRequestsGoToReplicaExceptForRecentWriter() throws Exception {
+        long ownerId = create(post("/users"), Map.of("name", "owner", "email", "owner@test.ru"));
+        long otherUserId = create(post("/users"), Map.of("name", "other", "email", "other@test.ru"));
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        long itemId = create(post("/items").header("X-Sharer-User-Id", ownerId),
+                Map.of("name", "Дрель", "description", "Ударная дрель", "available", true));
+
+        mockMvc.perform(get("/items/{itemId}", itemId).header("X-Sharer-User-Id", ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Дрель")));
+
+        mockMvc.perform(get("/items/{itemId}", itemId).header("X-Sharer-User-Id", otherUserId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void replicaPoolPublishesMetrics() throws Exception {
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk());
+
+        assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "replica-0").gauge(), notNullValue());
+        assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "primary").gauge(), notNullValue());
+    }
+
+    private long create(MockHttpServletRequestBuilder request, Map<String, Object> body) throws Exception {
+        String response = mockMvc.perform(request
+                        .content(mapper.writeValueAsString(body))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        return mapper.readTree(response).get("id").asLong();
+    }
+}
@@ -0,0 +1,100 @@
+package ru.practicum.shareit.datasource;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Порог медленного запроса 1 нс: в лог попадает каждый запрос. Заголовки со статистикой включает профиль test.
+// Кодировка вывода в сборке может быть не UTF-8, поэтому проверяются только латинские части строки лога
+@SpringBootTest(properties = {
+        "shareit.sql.slow-query-threshold=1ns",
+        "shareit.search.engine=like"})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@ActiveProfiles("test")
+@Transactional
+@ExtendWith(OutputCaptureExtension.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class SqlMonitoringTest {
+    private final MockMvc mockMvc;
+    private final EntityManager em;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+
+    @Test
+    void statementsAreCountedPerRequestAndSlowOnesLogged(CapturedOutput output) throws Exception {
+        User owner = persistUser("owner");
+        User booker = persistUser("booker");
+        Item item = Item.builder()
+                .name("Дрель")
+                .description("Ударная дрель")
+                .available(true)
+                .owner(owner)
+                .build();
+        em.persist(item);
+        Booking booking = Booking.builder()
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .item(item)
+                .booker(booker)
+                .status(BookingStatus.WAITING)
+                .build();
+        em.persist(booking);
+        em.flush();
+        em.clear();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        long requests = countRequests();
+
+        mockMvc.perform(get("/bookings/{bookingId}", booking.getId())
+                        .header("X-Sharer-User-Id", booker.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatisticsResponseAdvice.STATEMENT_COUNT_HEADER, "2"))
+                .andExpect(header().exists(SqlStatisticsResponseAdvice.TIME_HEADER));
+
+        assertThat(output.getOut(), containsString("BookingRepository.findByIdAndBookerIdOrItemOwnerId: select"));
+        assertThat(output.getOut(),
+                containsString("[" + booking.getId() + ", " + booker.getId() + ", " + booker.getId() + "]"));
+        assertThat(countRequests(), equalTo(requests + 1));
+    }
+
+    private long countRequests() {
+        DistributionSummary summary = meterRegistry.find("shareit.sql.statements")
+                .tags("method", "GET", "uri", "/bookings/{bookingId}")
+                .summary();
+        return summary != null ? summary.count() : 0;
+    }
+
+    private User persistUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@test.ru");
+        em.persist(user);
+        return user;
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.item.ItemController;
@@ -76,6 +77,19 @@ public class ErrorHandlerTest {
                 .andExpect(status().is4xxClientError());
     }
 
+    @Test
+    void optimisticLockingFailureExceptionTest() throws Exception {
+        when(itemService.getItemById(any(), any()))
+                .thenThrow(new OptimisticLockingFailureException("Вещь изменена"));
+
+        mockMvc.perform(get("/items/1")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void otherExceptionTest() throws Exception {
         when(itemService.getItemById(any(), any()))
@@ -9,6 +9,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithBookingDto;
 import ru.practicum.shareit.item.service.ItemService;
@@ -125,6 +126,27 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$[0].description", is(itemDto.getDescription())));
     }
 
+    @Test
+    void getItemAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 12, 0);
+        when(itemService.getItemAvailability(1L, 1L, from, from.plusDays(1)))
+                .thenReturn(List.of(
+                        new AvailabilityIntervalDto(from, from.plusHours(2), false),
+                        new AvailabilityIntervalDto(from.plusHours(2), from.plusDays(1), true)));
+
+        mockMvc.perform(get("/items/1/availability")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("from", "2030-01-01T12:00:00")
+                        .param("to", "2030-01-02T12:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].start", is("2030-01-01T12:00:00")))
+                .andExpect(jsonPath("$[0].available", is(false)))
+                .andExpect(jsonPath("$[1].end", is("2030-01-02T12:00:00")))
+                .andExpect(jsonPath("$[1].available", is(true)));
+    }
+
     @Test
     void addComment() throws Exception {
         when(itemService.addComment(any(), any(), any()))
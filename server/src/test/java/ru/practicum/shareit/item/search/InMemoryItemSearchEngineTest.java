@@ -0,0 +1,101 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+public class InMemoryItemSearchEngineTest {
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final InMemoryItemSearchEngine engine = new InMemoryItemSearchEngine(itemRepository);
+
+    private final User owner = User.builder().id(1L).name("owner").email("owner@test.ru").build();
+    private final Item drill = makeItem(1L, "Дрель", "Ударная дрель по бетону", true);
+    private final Item screwdriver = makeItem(2L, "Отвертка", "Аккумуляторная дрель-шуруповерт", true);
+    private final Item saw = makeItem(3L, "Пила", "Пила по дереву", true);
+    private final Item hiddenDrill = makeItem(4L, "Дрель", "Недоступная дрель", false);
+
+    private Map<Long, Item> items;
+
+    @BeforeEach
+    void beforeEach() {
+        items = List.of(drill, screwdriver, saw, hiddenDrill).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        when(itemRepository.findAll()).thenAnswer(invocation -> List.copyOf(items.values()));
+        when(itemRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            return ((Collection<Long>) ids).stream()
+                    .map(items::get)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    void searchRanksNameMatchesFirst() {
+        List<Item> found = engine.search("ДРЕЛЬ", PageRequest.of(0, 10));
+
+        assertThat(found, contains(drill, screwdriver));
+        verify(itemRepository, times(1)).findAll();
+    }
+
+    @Test
+    void searchWithShortText() {
+        assertThat(engine.search("ла", PageRequest.of(0, 10)), contains(saw));
+        assertThat(engine.search("ы", PageRequest.of(0, 10)), empty());
+    }
+
+    @Test
+    void searchWithPage() {
+        assertThat(engine.search("дрель", PageRequest.of(1, 1)), contains(screwdriver));
+    }
+
+    @Test
+    void searchAfter() {
+        assertThat(engine.searchAfter("о", 0L, 2), contains(drill, screwdriver));
+        assertThat(engine.searchAfter("о", screwdriver.getId(), 2), contains(saw));
+    }
+
+    @Test
+    void indexAndRemove() {
+        engine.search("пила", PageRequest.of(0, 10));
+
+        Item jigsaw = makeItem(5L, "Лобзик", "Электрическая пила", true);
+        items.put(jigsaw.getId(), jigsaw);
+        engine.index(jigsaw);
+        assertThat(engine.search("пила", PageRequest.of(0, 10)), contains(saw, jigsaw));
+
+        saw.setAvailable(false);
+        engine.index(saw);
+        assertThat(engine.search("пила", PageRequest.of(0, 10)), contains(jigsaw));
+
+        engine.remove(jigsaw.getId());
+        assertThat(engine.search("пила", PageRequest.of(0, 10)), empty());
+
+        engine.removeAllByOwnerId(owner.getId());
+        assertThat(engine.search("дрель", PageRequest.of(0, 10)), empty());
+        verify(itemRepository, times(1)).findAll();
+    }
+
+    private Item makeItem(Long id, String name, String description, Boolean available) {
+        return Item.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .available(available)
+                .owner(owner)
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemWithBookingDto;
+import ru.practicum.shareit.item.model.ItemBookingProjection;
+import ru.practicum.shareit.item.storage.ItemBookingProjectionRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Transactional
+@AutoConfigureTestDatabase
+public class ItemBookingProjectionServiceImplTest {
+    private final ItemBookingProjectionService projectionService;
+    private final ItemBookingProjectionRepository projectionRepository;
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final UserService userService;
+    private final EntityManager entityManager;
+
+    @Test
+    void onBookingApproved() {
+        UserDto owner = userService.addUser(makeUserDto("owner", "owner@test.ru"));
+        UserDto booker = userService.addUser(makeUserDto("booker", "booker@test.ru"));
+        ItemDto item = itemService.addItem(owner.getId(), makeItemDto());
+
+        LocalDateTime now = LocalDateTime.now();
+        BookingDto pastBooking = bookingService.addBooking(booker.getId(),
+                makeBookingDto(now.minusHours(3), now.minusHours(2), item.getId()));
+        BookingDto laterPastBooking = bookingService.addBooking(booker.getId(),
+                makeBookingDto(now.minusHours(1), now.minusMinutes(30), item.getId()));
+        BookingDto farBooking = bookingService.addBooking(booker.getId(),
+                makeBookingDto(now.plusHours(3), now.plusHours(4), item.getId()));
+        BookingDto nearBooking = bookingService.addBooking(booker.getId(),
+                makeBookingDto(now.plusHours(1), now.plusHours(2), item.getId()));
+
+        bookingService.approveBooking(owner.getId(), laterPastBooking.getId(), true);
+        bookingService.approveBooking(owner.getId(), pastBooking.getId(), true);
+        bookingService.approveBooking(owner.getId(), nearBooking.getId(), true);
+        bookingService.approveBooking(owner.getId(), farBooking.getId(), true);
+
+        List<ItemWithBookingDto> items = new ArrayList<>(itemService.getAllItemsByOwnerId(owner.getId(), 0, 10));
+
+        assertThat(items.size(), equalTo(1));
+        assertThat(items.get(0).getLastBooking().getId(), equalTo(laterPastBooking.getId()));
+        assertThat(items.get(0).getLastBooking().getBookerId(), equalTo(booker.getId()));
+        assertThat(items.get(0).getNextBooking().getId(), equalTo(nearBooking.getId()));
+    }
+
+    @Test
+    void rollForward() {
+        UserDto owner = userService.addUser(makeUserDto("owner", "owner@test.ru"));
+        UserDto booker = userService.addUser(makeUserDto("booker", "booker@test.ru"));
+        ItemDto item = itemService.addItem(owner.getId(), makeItemDto());
+
+        // Время хранится в БД с точностью до микросекунд
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        BookingDto pastBooking = bookingService.addBooking(booker.getId(),
+                makeBookingDto(now.minusHours(2), now.minusHours(1), item.getId()));
+        BookingDto futureBooking = bookingService.addBooking(booker.getId(),
+                makeBookingDto(now.plusHours(1), now.plusHours(2), item.getId()));
+        bookingService.approveBooking(owner.getId(), pastBooking.getId(), true);
+        bookingService.approveBooking(owner.getId(), futureBooking.getId(), true);
+
+        // Проекция, построенная в момент, когда прошлое бронирование еще не началось
+        projectionRepository.save(ItemBookingProjection.builder()
+                .itemId(item.getId())
+                .nextBookingId(pastBooking.getId())
+                .nextBookingBookerId(booker.getId())
+                .nextBookingStart(pastBooking.getStart())
+                .build());
+        // Бронирования читаются из БД, а не из контекста, как в запуске по расписанию
+        entityManager.flush();
+        entityManager.clear();
+
+        projectionService.rollForward();
+
+        ItemBookingProjection projection = projectionRepository.findById(item.getId()).orElseThrow();
+        assertThat(projection.getLastBookingId(), equalTo(pastBooking.getId()));
+        assertThat(projection.getLastBookingStart(), equalTo(pastBooking.getStart()));
+        assertThat(projection.getNextBookingId(), equalTo(futureBooking.getId()));
+        assertThat(projection.getNextBookingBookerId(), equalTo(booker.getId()));
+    }
+
+    // Бронирования подтверждены до появления таблицы проекций: строки проекции у вещи нет
+    @Test
+    void rollForwardCreatesMissingProjections() {
+        UserDto owner = userService.addUser(makeUserDto("owner", "owner@test.ru"));
+        UserDto booker = userService.addUser(makeUserDto("booker", "booker@test.ru"));
+        ItemDto item = itemService.addItem(owner.getId(), makeItemDto());
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        BookingDto pastBooking = bookingService.addBooking(booker.getId(),
+                makeBookingDto(now.minusHours(2), now.minusHours(1), item.getId()));
+        BookingDto futureBooking = bookingService.addBooking(booker.getId(),
+                makeBookingDto(now.plusHours(1), now.plusHours(2), item.getId()));
+        bookingService.approveBooking(owner.getId(), pastBooking.getId(), true);
+        bookingService.approveBooking(owner.getId(), futureBooking.getId(), true);
+        projectionRepository.deleteById(item.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        projectionService.rollForward();
+
+        ItemBookingProjection projection = projectionRepository.findById(item.getId()).orElseThrow();
+        assertThat(projection.getLastBookingId(), equalTo(pastBooking.getId()));
+        assertThat(projection.getLastBookingBookerId(), equalTo(booker.getId()));
+        assertThat(projection.getNextBookingId(), equalTo(futureBooking.getId()));
+        assertThat(projection.getNextBookingStart(), equalTo(futureBooking.getStart()));
+    }
+
+    @Test
+    void rollForwardWithoutStaleProjections() {
+        UserDto owner = userService.addUser(makeUserDto("owner", "owner@test.ru"));
+        ItemDto item = itemService.addItem(owner.getId(), makeItemDto());
+
+        projectionService.rollForward();
+
+        assertThat(projectionRepository.findById(item.getId()).isEmpty(), is(true));
+    }
+
+    private BookingDto makeBookingDto(LocalDateTime start, LocalDateTime end, Long itemId) {
+        return BookingDto.builder()
+                .start(start)
+                .end(end)
+                .itemId(itemId)
+                .build();
+    }
+
+    private ItemDto makeItemDto() {
+        return ItemDto.builder()
+                .name("item")
+                .description("item")
+                .available(true)
+                .build();
+    }
+
+    private UserDto makeUserDto(String name, String email) {
+        return UserDto.builder()
+                .name(name)
+                .email(email)
+                .build();
+    }
+}
@@ -7,18 +7,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.exception.NotAllowedException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithBookingDto;
+import ru.practicum.shareit.item.model.ItemView;
+import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.*;
@@ -31,6 +36,8 @@ import static org.mockito.Mockito.*;
 public class ItemServiceImplTest {
     private final ItemService itemService;
     private final UserService userService;
+    private final ItemRepository itemRepository;
+    private final CacheManager cacheManager;
     @MockBean
     private final BookingRepository bookingRepository;
 
@@ -96,6 +103,20 @@ public class ItemServiceImplTest {
         ));
     }
 
+    @Test
+    void updateItemEvictsCache() {
+        UserDto newUserDto = userService.addUser(userDto);
+        ItemDto newItemDto = itemService.addItem(newUserDto.getId(), makeItemDto("test", "test", true, null));
+
+        itemRepository.findViewById(newItemDto.getId());
+        assertThat(cacheManager.getCache("items").get(newItemDto.getId()).get(), instanceOf(ItemView.class));
+
+        itemService.updateItem(newUserDto.getId(), newItemDto.getId(), makeItemDto(null, null, false, null));
+
+        assertThat(cacheManager.getCache("items").get(newItemDto.getId()), nullValue());
+        assertThat(itemRepository.findViewById(newItemDto.getId()).orElseThrow().getAvailable(), equalTo(false));
+    }
+
     @Test
     void updateItemOnlyDescription() {
         UserDto newUserDto = userService.addUser(userDto);
@@ -348,6 +369,34 @@ public class ItemServiceImplTest {
         ));
     }
 
+    @Test
+    void getCommentsByItemIds() {
+        when(bookingRepository.existsByItemIdAndBookerIdAndStatusAndEndLessThan(any(), any(), any(), any()))
+                .thenReturn(true);
+
+        UserDto newUserDto = userService.addUser(userDto);
+        ItemDto newItemDto1 = itemService.addItem(newUserDto.getId(), makeItemDto("test1", "test1", true, null));
+        ItemDto newItemDto2 = itemService.addItem(newUserDto.getId(), makeItemDto("test2", "test2", true, null));
+        ItemDto newItemDto3 = itemService.addItem(newUserDto.getId(), makeItemDto("test3", "test3", true, null));
+
+        CommentDto firstCommentDto = itemService.addComment(newUserDto.getId(), newItemDto1.getId(), commentDto);
+        CommentDto secondCommentDto = itemService.addComment(newUserDto.getId(), newItemDto1.getId(), commentDto);
+        CommentDto otherCommentDto = itemService.addComment(newUserDto.getId(), newItemDto2.getId(), commentDto);
+
+        Map<Long, List<CommentDto>> commentsByItemId = itemService.getCommentsByItemIds(
+                List.of(newItemDto1.getId(), newItemDto2.getId(), newItemDto3.getId()));
+
+        assertThat(commentsByItemId.size(), equalTo(2));
+        assertThat(commentsByItemId.get(newItemDto1.getId()), contains(
+                hasProperty("id", equalTo(secondCommentDto.getId())),
+                hasProperty("id", equalTo(firstCommentDto.getId()))));
+        assertThat(commentsByItemId.get(newItemDto2.getId()), contains(allOf(
+                hasProperty("id", equalTo(otherCommentDto.getId())),
+                hasProperty("authorName", equalTo(userDto.getName())),
+                hasProperty("text", equalTo(commentDto.getText())))));
+        assertThat(itemService.getCommentsByItemIds(List.of()).size(), equalTo(0));
+    }
+
     private ItemDto makeItemDto(String name, String description, Boolean isAvailable, Long requestId) {
         return ItemDto.builder()
                 .name(name)
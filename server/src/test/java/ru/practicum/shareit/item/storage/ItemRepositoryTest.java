@@ -79,4 +79,34 @@ public class ItemRepositoryTest {
                 hasProperty("description", equalTo(item2.getDescription()))
         )));
     }
+
+    @Test
+    void findAllBySearchAfter() {
+        Item item1 = new Item();
+        item1.setName("test1");
+        item1.setDescription("test 1 description");
+        item1.setAvailable(true);
+
+        Item item2 = new Item();
+        item2.setName("test2");
+        item2.setDescription("test 2 description");
+        item2.setAvailable(true);
+
+        Item newItem1 = itemRepository.save(item1);
+        Item newItem2 = itemRepository.save(item2);
+
+        List<Item> items = itemRepository.findAllBySearchAfter("est", 0L, PageRequest.ofSize(1));
+
+        assertThat(items.size(), equalTo(1));
+        assertThat(items.get(0).getId(), equalTo(newItem1.getId()));
+
+        items = itemRepository.findAllBySearchAfter("est", newItem1.getId(), PageRequest.ofSize(1));
+
+        assertThat(items.size(), equalTo(1));
+        assertThat(items.get(0).getId(), equalTo(newItem2.getId()));
+
+        items = itemRepository.findAllBySearchAfter("est", newItem2.getId(), PageRequest.ofSize(1));
+
+        assertThat(items.size(), equalTo(0));
+    }
 }
@@ -11,6 +11,7 @@ import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingProjection;
 import ru.practicum.shareit.item.model.ItemWithBooking;
 import ru.practicum.shareit.user.model.User;
 
@@ -76,6 +77,7 @@ public class ItemWithBookingRepositoryTest {
         assertThat(itemWithBooking.getName(), equalTo(item.getName()));
         assertThat(itemWithBooking.getLastBooking(), notNullValue());
         assertThat(itemWithBooking.getLastBooking().getId(), equalTo(lastBooking.getId()));
+        assertThat(itemWithBooking.getLastBookingBookerId(), equalTo(user.getId()));
         assertThat(itemWithBooking.getNextBooking(), notNullValue());
         assertThat(itemWithBooking.getNextBooking().getId(), equalTo(nextBooking.getId()));
     }
@@ -168,4 +170,62 @@ public class ItemWithBookingRepositoryTest {
         assertThat(itemWithBooking.getLastBooking(), nullValue());
         assertThat(itemWithBooking.getNextBooking(), nullValue());
     }
+
+    @Test
+    void findItemWithProjectedBookingByOwnerId() {
+        User user = new User();
+        user.setName("test");
+        user.setEmail("test@test.ru");
+
+        em.persist(user);
+
+        Item item1 = new Item();
+        item1.setName("test1");
+        item1.setDescription("test 1 description");
+        item1.setAvailable(true);
+        item1.setOwner(user);
+
+        em.persist(item1);
+
+        Item item2 = new Item();
+        item2.setName("test2");
+        item2.setDescription("test 2 description");
+        item2.setAvailable(true);
+        item2.setOwner(user);
+
+        em.persist(item2);
+
+        Booking nextBooking = new Booking();
+        nextBooking.setItem(item1);
+        nextBooking.setBooker(user);
+        nextBooking.setStatus(BookingStatus.APPROVED);
+        nextBooking.setStart(LocalDateTime.now().plusMinutes(5));
+        nextBooking.setEnd(LocalDateTime.now().plusMinutes(10));
+
+        em.persist(nextBooking);
+
+        em.persist(ItemBookingProjection.builder()
+                .itemId(item1.getId())
+                .nextBookingId(nextBooking.getId())
+                .nextBookingBookerId(user.getId())
+                .nextBookingStart(nextBooking.getStart())
+                .build());
+        em.flush();
+
+        List<ItemWithBooking> foundItems = itemRepository.findItemWithProjectedBookingByOwnerId(
+                user.getId(), PageRequest.of(0, 10, Sort.by("id").ascending()));
+
+        assertThat(foundItems.size(), equalTo(2));
+
+        ItemWithBooking itemWithBooking = foundItems.get(0);
+        assertThat(itemWithBooking.getName(), equalTo(item1.getName()));
+        assertThat(itemWithBooking.getLastBooking(), nullValue());
+        assertThat(itemWithBooking.getNextBooking(), notNullValue());
+        assertThat(itemWithBooking.getNextBooking().getId(), equalTo(nextBooking.getId()));
+
+        itemWithBooking = foundItems.get(1);
+        assertThat(itemWithBooking.getName(), equalTo(item2.getName()));
+        assertThat(itemWithBooking.getLastBooking(), nullValue());
+        assertThat(itemWithBooking.getNextBooking(), nullValue());
+    }
 }
@@ -91,6 +91,21 @@ public class ItemRequestServiceImplTest {
         )));
     }
 
+    @Test
+    void getAllItemRequestsWithCursor() {
+        Collection<ItemRequestDto> itemRequestDtos = itemRequestService.getAllItemRequests(999L, "", 10);
+        assertThat(itemRequestDtos.size(), equalTo(1));
+        assertThat(itemRequestDtos, hasItem(hasProperty("id", equalTo(newItemRequestDto.getId()))));
+
+        itemRequestDtos = itemRequestService.getAllItemRequests(999L,
+                newItemRequestDto.getCreated().plusSeconds(1) + "," + newItemRequestDto.getId(), 10);
+        assertThat(itemRequestDtos.size(), equalTo(1));
+
+        itemRequestDtos = itemRequestService.getAllItemRequests(999L,
+                newItemRequestDto.getCreated().minusSeconds(1) + "," + newItemRequestDto.getId(), 10);
+        assertThat(itemRequestDtos.size(), equalTo(0));
+    }
+
     @Test
     void getItemRequestByIdWithWrongUserId() {
         NotFoundException e = Assertions.assertThrows(NotFoundException.class,
@@ -6,9 +6,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import ru.practicum.shareit.exception.AlreadyExistException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.storage.UserRepository;
 
 import javax.transaction.Transactional;
 
@@ -23,6 +25,8 @@ import static org.hamcrest.Matchers.*;
 @AutoConfigureTestDatabase
 public class UserServiceImplTest {
     private final UserService userService;
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
 
     @Test
     void addUser() {
@@ -142,6 +146,39 @@ public class UserServiceImplTest {
         ));
     }
 
+    @Test
+    void getUserByIdFromCacheAndEvictOnUpdate() {
+        UserDto newUserDto = userService.addUser(makeUserDto("test1", "test1@test.ru"));
+
+        userService.getUserById(newUserDto.getId());
+        assertThat(cacheManager.getCache("users").get(newUserDto.getId()), notNullValue());
+
+        UserDto updatedUserDto = userService.updateUser(newUserDto.getId(), makeUserDto("test2", null));
+        assertThat(cacheManager.getCache("users").get(newUserDto.getId()), nullValue());
+
+        UserDto foundUserDto = userService.getUserById(newUserDto.getId());
+        assertThat(foundUserDto, allOf(
+                hasProperty("name", equalTo(updatedUserDto.getName())),
+                hasProperty("email", equalTo(newUserDto.getEmail()))
+        ));
+    }
+
+    @Test
+    void deleteUserEvictsCache() {
+        UserDto newUserDto = userService.addUser(makeUserDto("test", "test@test.ru"));
+
+        userService.getUserById(newUserDto.getId());
+        assertThat(userRepository.existsById(newUserDto.getId()), equalTo(true));
+        assertThat(cacheManager.getCache("userExists").get(newUserDto.getId()), notNullValue());
+
+        userService.deleteUser(newUserDto.getId());
+
+        assertThat(cacheManager.getCache("users").get(newUserDto.getId()), nullValue());
+        assertThat(cacheManager.getCache("userExists").get(newUserDto.getId()), nullValue());
+        Assertions.assertThrows(NotFoundException.class,
+                () -> userService.getUserById(newUserDto.getId()));
+    }
+
     private UserDto makeUserDto(String name, String email) {
         return UserDto.builder()
                 .name(name)
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.user.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserView;
+
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UserLookupTest {
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserLookup userLookup = new UserLookup(userRepository);
+    private final UserView user = new UserView(1L, "user", "user@test.ru");
+
+    @AfterEach
+    void afterEach() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void userIsResolvedOncePerRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findViewById(1L)).thenReturn(Optional.of(user));
+
+        userLookup.checkExists(1L);
+        userLookup.checkExists(1L);
+        assertThat(userLookup.getUser(1L).getName(), equalTo("user"));
+        assertThat(userLookup.getUser(1L).getEmail(), equalTo("user@test.ru"));
+
+        verify(userRepository, times(1)).existsById(1L);
+        verify(userRepository, times(1)).findViewById(1L);
+
+        userLookup.forget(1L);
+        userLookup.getUser(1L);
+        verify(userRepository, times(2)).findViewById(1L);
+    }
+
+    // Каждый вызов получает свой экземпляр: изменение одного не видно в следующих
+    @Test
+    void userIsCopiedOnEveryCall() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(userRepository.findViewById(1L)).thenReturn(Optional.of(user));
+
+        User first = userLookup.getUser(1L);
+        first.setName("changed");
+
+        assertThat(userLookup.getUser(1L), not(sameInstance(first)));
+        assertThat(userLookup.getUser(1L).getName(), equalTo("user"));
+        verify(userRepository, times(1)).findViewById(1L);
+    }
+
+    @Test
+    void userIsResolvedOnEveryCallOutsideRequest() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        userLookup.checkExists(1L);
+        userLookup.checkExists(1L);
+
+        verify(userRepository, times(2)).existsById(1L);
+    }
+
+    @Test
+    void missingUserIsNotRemembered() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(userRepository.existsById(2L)).thenReturn(false);
+
+        Assertions.assertThrows(NotFoundException.class, () -> userLookup.checkExists(2L));
+        Assertions.assertThrows(NotFoundException.class, () -> userLookup.checkExists(2L));
+
+        verify(userRepository, times(2)).existsById(2L);
+    }
+}
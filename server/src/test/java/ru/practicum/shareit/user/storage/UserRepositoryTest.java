@@ -7,8 +7,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserView;
 
 import javax.persistence.TypedQuery;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
 
 @DataJpaTest
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
@@ -36,4 +41,19 @@ public class UserRepositoryTest {
 
         Assertions.assertEquals(foundUser.getId(), newUser.getId());
     }
+
+    @Test
+    void findAllViews() {
+        User user = userRepository.save(User.builder().name("test").email("test@test.ru").build());
+        User anotherUser = userRepository.save(User.builder().name("another").email("another@test.ru").build());
+        em.clear();
+
+        List<UserView> users = userRepository.findAllViews();
+
+        assertThat(users, contains(
+                allOf(hasProperty("id", equalTo(user.getId())), hasProperty("name", equalTo("test")),
+                        hasProperty("email", equalTo("test@test.ru"))),
+                allOf(hasProperty("id", equalTo(anotherUser.getId())), hasProperty("name", equalTo("another")),
+                        hasProperty("email", equalTo("another@test.ru")))));
+    }
 }